@@ -0,0 +1,85 @@
+package nl.theepicblock.polymc.jmh;
+
+import com.mojang.authlib.GameProfile;
+import io.github.theepicblock.polymc.api.misc.PolyMapProvider;
+import net.minecraft.entity.Entity;
+import net.minecraft.network.PacketCallbacks;
+import net.minecraft.network.packet.Packet;
+import net.minecraft.network.packet.c2s.common.SyncedClientOptions;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.network.ChunkFilter;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.math.Vec3d;
+import nl.theepicblock.polymc.testmod.automated.FakeNetworkHandler;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.UUID;
+
+/**
+ * Gives the benchmarks access to the server they're running in.
+ * @see BenchmarkMod
+ */
+public class BenchmarkEnvironment {
+    private static MinecraftServer server;
+
+    static void init(MinecraftServer server) {
+        BenchmarkEnvironment.server = server;
+    }
+
+    static void clear() {
+        BenchmarkEnvironment.server = null;
+    }
+
+    public static MinecraftServer getServer() {
+        if (server == null) {
+            throw new IllegalStateException("This benchmark needs a running server. Use the runBenchmark task");
+        }
+        return server;
+    }
+
+    public static ServerWorld getWorld() {
+        return getServer().getOverworld();
+    }
+
+    /**
+     * Creates a player that's connected to the world but discards all packets.
+     * Its PolyMap will be PolyMc's generated map.
+     * @see nl.theepicblock.polymc.testmod.automated.PacketTester
+     */
+    public static ServerPlayerEntity createFakePlayer(ServerWorld world, Vec3d pos, int viewDistance) {
+        var profile = new GameProfile(UUID.randomUUID(), "Benchmark player");
+        var player = new ServerPlayerEntity(world.getServer(), world, profile, SyncedClientOptions.createDefault());
+        var networkHandler = new DiscardingNetworkHandler(world.getServer(), player);
+        PolyMapProvider.get(networkHandler).refreshUsedPolyMap();
+
+        player.setPosition(pos);
+        player.setChunkFilter(new ChunkFilter.Cylindrical(new ChunkPos(BlockPos.ofFloored(pos)), viewDistance));
+        world.onPlayerConnected(player);
+        world.getChunkManager().threadedAnvilChunkStorage.updatePosition(player);
+        return player;
+    }
+
+    /**
+     * Removes the player the same way the player manager does when a player disconnects,
+     * so everything that's cleaned up on {@code ENTITY_UNLOAD} is cleaned up for this player too
+     */
+    public static void removeFakePlayer(ServerPlayerEntity player) {
+        player.getServerWorld().removePlayer(player, Entity.RemovalReason.UNLOADED_WITH_PLAYER);
+    }
+
+    /**
+     * Doesn't record or reencode packets, there's too many of them during a benchmark.
+     */
+    private static class DiscardingNetworkHandler extends FakeNetworkHandler {
+        public DiscardingNetworkHandler(MinecraftServer server, ServerPlayerEntity player) {
+            super(server, player);
+        }
+
+        @Override
+        public void send(Packet<?> packet, @Nullable PacketCallbacks callbacks) {
+        }
+    }
+}
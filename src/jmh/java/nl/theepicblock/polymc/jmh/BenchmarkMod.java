@@ -0,0 +1,89 @@
+package nl.theepicblock.polymc.jmh;
+
+import net.fabricmc.api.ModInitializer;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
+import net.fabricmc.fabric.api.item.v1.FabricItemSettings;
+import net.fabricmc.fabric.api.object.builder.v1.block.FabricBlockSettings;
+import net.minecraft.block.Block;
+import net.minecraft.block.Blocks;
+import net.minecraft.block.SlabBlock;
+import net.minecraft.item.BlockItem;
+import net.minecraft.item.FoodComponents;
+import net.minecraft.item.Item;
+import net.minecraft.registry.Registries;
+import net.minecraft.registry.Registry;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.util.Identifier;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Registers a fixed set of synthetic modded content, so PolyMc has something to generate polys for.
+ * If the {@code polymc.benchmark} property is set, the benchmarks matching it will be run once the server has started.
+ * The results are written to {@code jmh-result.json} in the run directory.
+ */
+public class BenchmarkMod implements ModInitializer {
+    private static final String MODID = "polymc-benchmark";
+    private static final Logger LOGGER = LogManager.getLogger("PolyMc Benchmark");
+    private static final int SYNTHETIC_BLOCKS = 256;
+    private static final int SYNTHETIC_ITEMS = 256;
+
+    public static final List<Block> BLOCKS = new ArrayList<>();
+    public static final List<Item> ITEMS = new ArrayList<>();
+
+    @Override
+    public void onInitialize() {
+        for (int i = 0; i < SYNTHETIC_BLOCKS; i++) {
+            // Mix in some blocks with multiple states
+            var block = i % 4 == 0 ? new SlabBlock(FabricBlockSettings.copyOf(Blocks.STONE_SLAB)) : new Block(FabricBlockSettings.copyOf(Blocks.STONE));
+            var id = id("block_" + i);
+            Registry.register(Registries.BLOCK, id, block);
+            Registry.register(Registries.ITEM, id, new BlockItem(block, new FabricItemSettings()));
+            BLOCKS.add(block);
+        }
+
+        for (int i = 0; i < SYNTHETIC_ITEMS; i++) {
+            var settings = new FabricItemSettings();
+            if (i % 4 == 0) settings.food(FoodComponents.BREAD);
+            var item = Registry.register(Registries.ITEM, id("item_" + i), new Item(settings));
+            ITEMS.add(item);
+        }
+
+        var benchmarks = System.getProperty("polymc.benchmark");
+        if (benchmarks != null) {
+            ServerLifecycleEvents.SERVER_STARTED.register(server -> runBenchmarks(server, benchmarks));
+        }
+    }
+
+    /**
+     * Runs on the server thread, so the server won't tick whilst the benchmarks are running.
+     */
+    private static void runBenchmarks(MinecraftServer server, String benchmarks) {
+        BenchmarkEnvironment.init(server);
+        try {
+            var options = new OptionsBuilder()
+                    .include(benchmarks)
+                    .forks(0) // The benchmarks need the server that's running in this jvm
+                    .resultFormat(ResultFormatType.JSON)
+                    .result("jmh-result.json")
+                    .build();
+            new Runner(options).run();
+        } catch (RunnerException e) {
+            LOGGER.error("Failed to run benchmarks", e);
+        } finally {
+            BenchmarkEnvironment.clear();
+            server.stop(false);
+        }
+    }
+
+    private static Identifier id(String path) {
+        return new Identifier(MODID, path);
+    }
+}
@@ -0,0 +1,86 @@
+package nl.theepicblock.polymc.jmh;
+
+import io.github.theepicblock.polymc.PolyMc;
+import io.github.theepicblock.polymc.api.PolyMap;
+import io.github.theepicblock.polymc.impl.misc.ClientStateIdTable;
+import io.github.theepicblock.polymc.impl.misc.IdListPaletteTranscoder;
+import io.github.theepicblock.polymc.mixins.wizards.block.PalettedContainerAccessor;
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.util.collection.PaletteStorage;
+import net.minecraft.world.chunk.PalettedContainer;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the blockstate remapping that happens for every block in every chunk that's sent.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class BlockStateBenchmark {
+    private static final int SIZE = 4096;
+
+    private PolyMap map;
+    private BlockState[] states;
+    private PaletteStorage globalPaletteStorage;
+    private ClientStateIdTable table;
+
+    @Setup
+    public void setup() {
+        BenchmarkEnvironment.getServer();
+        map = PolyMc.getMainMap();
+        table = map.getClientStateIdTable();
+        if (table == null) table = ClientStateIdTable.EMPTY;
+
+        // Half vanilla, half modded
+        var vanillaStates = new BlockState[]{
+                Blocks.STONE.getDefaultState(),
+                Blocks.DIRT.getDefaultState(),
+                Blocks.GRASS_BLOCK.getDefaultState(),
+                Blocks.OAK_LOG.getDefaultState(),
+                Blocks.WATER.getDefaultState(),
+                Blocks.AIR.getDefaultState()
+        };
+        var random = new Random(42);
+        states = new BlockState[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            if (random.nextBoolean()) {
+                states[i] = vanillaStates[random.nextInt(vanillaStates.length)];
+            } else {
+                states[i] = BenchmarkMod.BLOCKS.get(random.nextInt(BenchmarkMod.BLOCKS.size())).getDefaultState();
+            }
+        }
+
+        // Enough distinct states that the container switches to the global palette
+        var container = new PalettedContainer<>(Block.STATE_IDS, Blocks.AIR.getDefaultState(), PalettedContainer.PaletteProvider.BLOCK_STATE);
+        for (int i = 0; i < SIZE; i++) {
+            var state = i % 2 == 0 ? states[i] : Block.STATE_IDS.get(i);
+            container.set(i & 15, (i >> 8) & 15, (i >> 4) & 15, state);
+        }
+        //noinspection unchecked
+        globalPaletteStorage = ((PalettedContainerAccessor<BlockState>)container).getData().storage();
+    }
+
+    @Benchmark
+    public void getClientStateRawId(Blackhole blackhole) {
+        for (var state : states) {
+            blackhole.consume(map.getClientStateRawId(state, null));
+        }
+    }
+
+    /**
+     * The remapping done by {@link io.github.theepicblock.polymc.mixins.block.implementations.IdListImplementation} using the real table
+     */
+    @Benchmark
+    public long[] transcodeGlobalPalette() {
+        return IdListPaletteTranscoder.transcode(globalPaletteStorage.getData(), globalPaletteStorage.getElementBits(), globalPaletteStorage.getSize(), table,
+                serverId -> map.getClientStateRawId(Block.getStateFromRawId(serverId), null));
+    }
+}
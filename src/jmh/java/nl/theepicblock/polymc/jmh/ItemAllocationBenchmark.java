@@ -0,0 +1,98 @@
+package nl.theepicblock.polymc.jmh;
+
+import io.github.theepicblock.polymc.api.PolyMap;
+import io.github.theepicblock.polymc.api.item.ItemLocation;
+import io.github.theepicblock.polymc.api.misc.PolyMapProvider;
+import net.minecraft.enchantment.Enchantments;
+import net.minecraft.item.ItemStack;
+import net.minecraft.item.Items;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.util.math.Vec3d;
+import net.minecraft.world.GameMode;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how many bytes {@link PolyMap#getClientItem} allocates per item.
+ * The allocations are read from the thread's allocation counter, so this doesn't need {@code -prof gc}.
+ * Unchanged vanilla items sent to survival players are expected to report an {@code allocatedBytes} of 0.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ItemAllocationBenchmark {
+    private static final int BATCH = 1024;
+    private static final com.sun.management.ThreadMXBean THREAD_BEAN = (com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+
+    @Param({"vanilla", "vanilla_nbt", "modded"})
+    public String stackType;
+
+    @Param({"false", "true"})
+    public boolean creative;
+
+    private ServerPlayerEntity player;
+    private PolyMap map;
+    private ItemStack stack;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Allocations {
+        /**
+         * Total amount of bytes allocated by {@link PolyMap#getClientItem} during the iteration
+         */
+        public long allocatedBytes;
+        public long items;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            allocatedBytes = 0;
+            items = 0;
+        }
+    }
+
+    @Setup
+    public void setup() {
+        var world = BenchmarkEnvironment.getWorld();
+        player = BenchmarkEnvironment.createFakePlayer(world, Vec3d.ZERO, 5);
+        player.changeGameMode(creative ? GameMode.CREATIVE : GameMode.SURVIVAL);
+        map = PolyMapProvider.getPolyMap(player);
+
+        stack = switch (stackType) {
+            case "vanilla" -> new ItemStack(Items.STONE, 64);
+            case "vanilla_nbt" -> {
+                var s = new ItemStack(Items.DIAMOND_SWORD);
+                s.addEnchantment(Enchantments.SHARPNESS, 3);
+                yield s;
+            }
+            case "modded" -> new ItemStack(BenchmarkMod.ITEMS.get(1), 16);
+            default -> throw new IllegalArgumentException(stackType);
+        };
+    }
+
+    @TearDown
+    public void tearDown() {
+        BenchmarkEnvironment.removeFakePlayer(player);
+    }
+
+    /**
+     * Translates a batch of items, so the cost of reading the allocation counter is spread out.
+     */
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public ItemStack getClientItem(Allocations allocations) {
+        var thread = Thread.currentThread().getId();
+        var before = THREAD_BEAN.getThreadAllocatedBytes(thread);
+        ItemStack last = null;
+        for (int i = 0; i < BATCH; i++) {
+            last = map.getClientItem(stack, player, ItemLocation.INVENTORY);
+        }
+        var after = THREAD_BEAN.getThreadAllocatedBytes(thread);
+        allocations.allocatedBytes += after - before;
+        allocations.items += BATCH;
+        return last;
+    }
+}
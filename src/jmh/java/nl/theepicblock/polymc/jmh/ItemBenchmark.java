@@ -0,0 +1,81 @@
+package nl.theepicblock.polymc.jmh;
+
+import io.github.theepicblock.polymc.api.PolyMap;
+import io.github.theepicblock.polymc.api.item.ItemLocation;
+import io.github.theepicblock.polymc.api.item.ItemPoly;
+import io.github.theepicblock.polymc.api.misc.PolyMapProvider;
+import net.minecraft.enchantment.Enchantments;
+import net.minecraft.item.ItemStack;
+import net.minecraft.item.Items;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.text.Text;
+import net.minecraft.util.math.Vec3d;
+import net.minecraft.world.GameMode;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link PolyMap#getClientItem}, which runs for every item that is written to a packet.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ItemBenchmark {
+    @Param({"vanilla", "vanilla_nbt", "modded", "modded_nbt"})
+    public String stackType;
+
+    @Param({"false", "true"})
+    public boolean creative;
+
+    private ServerPlayerEntity player;
+    private PolyMap map;
+    private ItemStack stack;
+    private ItemPoly itemPoly;
+
+    @Setup
+    public void setup() {
+        var world = BenchmarkEnvironment.getWorld();
+        player = BenchmarkEnvironment.createFakePlayer(world, Vec3d.ZERO, 5);
+        player.changeGameMode(creative ? GameMode.CREATIVE : GameMode.SURVIVAL);
+        map = PolyMapProvider.getPolyMap(player);
+
+        stack = switch (stackType) {
+            case "vanilla" -> new ItemStack(Items.STONE, 64);
+            case "vanilla_nbt" -> {
+                var s = new ItemStack(Items.DIAMOND_SWORD);
+                s.addEnchantment(Enchantments.SHARPNESS, 3);
+                yield s;
+            }
+            case "modded" -> new ItemStack(BenchmarkMod.ITEMS.get(1), 16);
+            case "modded_nbt" -> {
+                var s = new ItemStack(BenchmarkMod.ITEMS.get(1), 16);
+                s.setCustomName(Text.literal("Named"));
+                yield s;
+            }
+            default -> throw new IllegalArgumentException(stackType);
+        };
+        itemPoly = map.getItemPoly(stack.getItem());
+    }
+
+    @TearDown
+    public void tearDown() {
+        BenchmarkEnvironment.removeFakePlayer(player);
+    }
+
+    @Benchmark
+    public ItemStack getClientItem() {
+        return map.getClientItem(stack, player, ItemLocation.INVENTORY);
+    }
+
+    /**
+     * Only the {@link ItemPoly}, without the global transformers. For modded items this is a {@link io.github.theepicblock.polymc.impl.poly.item.CustomModelDataPoly}
+     */
+    @Benchmark
+    public ItemStack itemPoly() {
+        if (itemPoly == null) return stack;
+        return itemPoly.getClientItem(stack, player, ItemLocation.INVENTORY);
+    }
+}
@@ -0,0 +1,73 @@
+package nl.theepicblock.polymc.jmh;
+
+import io.github.theepicblock.polymc.PolyMc;
+import io.github.theepicblock.polymc.api.PolyMap;
+import io.github.theepicblock.polymc.impl.poly.wizard.PacketCountManager;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.math.Vec3d;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link PacketCountManager#getView(ServerWorld, ChunkPos, PolyMap, int, int)}, which is called for every chunk with block wizards, every tick.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class PacketViewBenchmark {
+    private static final int CHUNK_RADIUS = 8;
+
+    @Param({"10", "50", "150"})
+    public int players;
+
+    private final List<ServerPlayerEntity> playerList = new ArrayList<>();
+    private final List<ChunkPos> chunks = new ArrayList<>();
+    private ServerWorld world;
+    private PolyMap map;
+    private int tick;
+
+    @Setup
+    public void setup() {
+        world = BenchmarkEnvironment.getWorld();
+        map = PolyMc.getMainMap();
+
+        var random = new Random(42);
+        for (int i = 0; i < players; i++) {
+            var pos = new Vec3d(random.nextInt(512) - 256, 64, random.nextInt(512) - 256);
+            playerList.add(BenchmarkEnvironment.createFakePlayer(world, pos, 10));
+        }
+
+        for (int x = -CHUNK_RADIUS; x < CHUNK_RADIUS; x++) {
+            for (int z = -CHUNK_RADIUS; z < CHUNK_RADIUS; z++) {
+                chunks.add(new ChunkPos(x, z));
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        playerList.forEach(BenchmarkEnvironment::removeFakePlayer);
+        playerList.clear();
+        chunks.clear();
+    }
+
+    /**
+     * One tick worth of views, for {@code (2*CHUNK_RADIUS)^2} chunks with wizards
+     */
+    @Benchmark
+    public void getViewForChunks(Blackhole blackhole) {
+        tick++;
+        for (int i = 0; i < chunks.size(); i++) {
+            blackhole.consume(PacketCountManager.INSTANCE.getView(world, chunks.get(i), map, tick, i));
+        }
+    }
+}
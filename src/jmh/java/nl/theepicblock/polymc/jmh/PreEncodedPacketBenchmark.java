@@ -0,0 +1,107 @@
+package nl.theepicblock.polymc.jmh;
+
+import io.github.theepicblock.polymc.impl.poly.wizard.PreEncodedPacket;
+import io.netty.buffer.Unpooled;
+import net.minecraft.network.NetworkSide;
+import net.minecraft.network.NetworkState;
+import net.minecraft.network.PacketByteBuf;
+import net.minecraft.network.packet.Packet;
+import net.minecraft.network.packet.s2c.play.EntitiesDestroyS2CPacket;
+import net.minecraft.network.packet.s2c.play.EntityS2CPacket;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares encoding a wizard packet separately for every viewer with encoding it once using {@link PreEncodedPacket}.
+ * Both write the packet id and contents to a reused buffer per viewer, the same way the packet encoder does before compression.
+ * Allocations are read from the thread's allocation counter, like {@link ItemAllocationBenchmark}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class PreEncodedPacketBenchmark {
+    private static final com.sun.management.ThreadMXBean THREAD_BEAN = (com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+
+    @Param({"50"})
+    public int viewers;
+
+    /**
+     * {@code move} is what most wizards send every tick, {@code destroy} is a bigger packet removing 64 entities at once
+     */
+    @Param({"move", "destroy"})
+    public String packetType;
+
+    private NetworkState.PacketHandler<?> handler;
+    private Packet<?> packet;
+    private final PacketByteBuf out = new PacketByteBuf(Unpooled.buffer(1024));
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Allocations {
+        /**
+         * Total amount of bytes allocated while sending the packet during the iteration
+         */
+        public long allocatedBytes;
+        public long broadcasts;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            allocatedBytes = 0;
+            broadcasts = 0;
+        }
+    }
+
+    @Setup
+    public void setup() {
+        BenchmarkEnvironment.getServer();
+        handler = NetworkState.PLAY.getHandler(NetworkSide.CLIENTBOUND);
+        packet = switch (packetType) {
+            case "move" -> new EntityS2CPacket.MoveRelative(1234, (short)12, (short)-3456, (short)789, true);
+            case "destroy" -> {
+                var ids = new int[64];
+                for (int i = 0; i < ids.length; i++) ids[i] = 100_000 + i;
+                yield new EntitiesDestroyS2CPacket(ids);
+            }
+            default -> throw new IllegalArgumentException(packetType);
+        };
+    }
+
+    @Benchmark
+    public int perViewer(Allocations allocations) {
+        var before = THREAD_BEAN.getThreadAllocatedBytes(Thread.currentThread().getId());
+        var written = 0;
+        for (int i = 0; i < viewers; i++) {
+            written += encode(packet);
+        }
+        allocations.allocatedBytes += THREAD_BEAN.getThreadAllocatedBytes(Thread.currentThread().getId()) - before;
+        allocations.broadcasts++;
+        return written;
+    }
+
+    @Benchmark
+    public int preEncoded(Allocations allocations) {
+        var before = THREAD_BEAN.getThreadAllocatedBytes(Thread.currentThread().getId());
+        var shared = PreEncodedPacket.shareIfPossible(packet, viewers);
+        var written = 0;
+        for (int i = 0; i < viewers; i++) {
+            written += encode(shared);
+        }
+        allocations.allocatedBytes += THREAD_BEAN.getThreadAllocatedBytes(Thread.currentThread().getId()) - before;
+        allocations.broadcasts++;
+        return written;
+    }
+
+    /**
+     * Does the same as the packet encoder, including the redirect done by {@link io.github.theepicblock.polymc.mixins.wizards.PreEncodedPacketEncoderMixin}
+     */
+    private int encode(Packet<?> packet) {
+        out.clear();
+        out.writeVarInt(handler.getId(packet instanceof PreEncodedPacket preEncoded ? preEncoded.getPacket() : packet));
+        packet.write(out);
+        return out.readableBytes();
+    }
+}
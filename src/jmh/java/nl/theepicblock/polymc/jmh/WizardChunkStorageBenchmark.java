@@ -0,0 +1,108 @@
+package nl.theepicblock.polymc.jmh;
+
+import io.github.theepicblock.polymc.impl.misc.WatchListener;
+import io.github.theepicblock.polymc.impl.mixin.WizardChunkDuck;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.math.Vec3d;
+import net.minecraft.world.chunk.WorldChunk;
+import nl.theepicblock.polymc.testmod.Testmod;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the heap used by {@link #WIZARDS} {@code test_block_wizard}s in real chunks. Unlike {@link WizardStorageBenchmark},
+ * this counts everything that's kept around for a wizard block: the wizards themselves, the storage and section indices
+ * of {@link io.github.theepicblock.polymc.mixins.wizards.block.WorldChunkMixin} and the block tickers of the world.
+ * <p>
+ * The blocks are written straight into the sections, like a chunk that was loaded from disk, and the wizards are created once a player watches the chunk.
+ * The chunks aren't added to the world, so nothing else holds on to them. The heap is read after a full GC before and after the chunks are filled,
+ * {@code retainedBytes} is the difference. {@code leftoverBytes} is what's still used after the chunks are unloaded again, which should be close to 0.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+public class WizardChunkStorageBenchmark {
+    private static final int WIZARDS = 100_000;
+    private static final int WIZARDS_PER_CHUNK = 256;
+    /**
+     * Far away from spawn, so the block tickers of these chunks don't get mixed up with the ones of loaded chunks
+     */
+    private static final int CHUNK_OFFSET = 20_000;
+
+    private ServerWorld world;
+    private ServerPlayerEntity player;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Heap {
+        public long retainedBytes;
+        public long leftoverBytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            retainedBytes = 0;
+            leftoverBytes = 0;
+        }
+    }
+
+    @Setup
+    public void setup() {
+        world = BenchmarkEnvironment.getWorld();
+        player = BenchmarkEnvironment.createFakePlayer(world, new Vec3d(0, 64, 0), 10);
+    }
+
+    @TearDown
+    public void tearDown() {
+        BenchmarkEnvironment.removeFakePlayer(player);
+    }
+
+    /**
+     * Fills the chunks and creates their wizards from an empty heap, then unloads them again
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void retainedHeap(Heap heap) {
+        var before = usedHeap();
+        var chunks = fill();
+        heap.retainedBytes = usedHeap() - before;
+
+        chunks.forEach(chunk -> ((WatchListener)chunk).polymc$removeAllPlayers());
+        chunks = null; // So the chunks themselves can be collected before measuring again
+        heap.leftoverBytes = usedHeap() - before;
+    }
+
+    private List<WorldChunk> fill() {
+        var state = Testmod.TEST_BLOCK_WIZARD.getDefaultState();
+        var chunksPerRow = (int)Math.ceil(Math.sqrt(WIZARDS / (double)WIZARDS_PER_CHUNK));
+        var random = new Random(42);
+        var ret = new ArrayList<WorldChunk>();
+        for (int i = 0; i < WIZARDS; i += WIZARDS_PER_CHUNK) {
+            var chunkIndex = i / WIZARDS_PER_CHUNK;
+            var chunk = new WorldChunk(world, new ChunkPos(CHUNK_OFFSET + chunkIndex % chunksPerRow, CHUNK_OFFSET + chunkIndex / chunksPerRow));
+            for (int j = 0; j < WIZARDS_PER_CHUNK && i + j < WIZARDS; j++) {
+                var y = 64 + random.nextInt(64);
+                chunk.getSection(chunk.getSectionIndex(y)).setBlockState(j & 15, y & 15, j >> 4, state, false);
+            }
+            // Creates the wizards, the same as when the chunk is first watched
+            ((WizardChunkDuck)chunk).polymc$spawnWizardsFor(player);
+            ret.add(chunk);
+        }
+        return ret;
+    }
+
+    private static long usedHeap() {
+        var memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
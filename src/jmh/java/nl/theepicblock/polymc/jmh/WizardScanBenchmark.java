@@ -0,0 +1,65 @@
+package nl.theepicblock.polymc.jmh;
+
+import io.github.theepicblock.polymc.PolyMc;
+import io.github.theepicblock.polymc.api.PolyMap;
+import io.github.theepicblock.polymc.impl.poly.wizard.WizardPaletteScanner;
+import io.github.theepicblock.polymc.mixins.wizards.block.PalettedContainerAccessor;
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.world.chunk.PalettedContainer;
+import nl.theepicblock.polymc.testmod.Testmod;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the palette scan that finds wizard blocks when a chunk is first watched.
+ * @see io.github.theepicblock.polymc.mixins.wizards.block.WorldChunkMixin
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class WizardScanBenchmark {
+    /**
+     * Amount of wizard blocks in the section
+     */
+    @Param({"0", "16", "256"})
+    public int wizards;
+
+    /**
+     * Whether the section contains enough different states to use the global palette
+     */
+    @Param({"false", "true"})
+    public boolean globalPalette;
+
+    private PolyMap map;
+    private PalettedContainer.Data<BlockState> data;
+
+    @Setup
+    public void setup() {
+        BenchmarkEnvironment.getServer();
+        map = PolyMc.getMainMap();
+
+        var container = new PalettedContainer<>(Block.STATE_IDS, Blocks.AIR.getDefaultState(), PalettedContainer.PaletteProvider.BLOCK_STATE);
+        for (int i = 0; i < 4096; i++) {
+            var state = globalPalette ? Block.STATE_IDS.get(i % 1024 + 1) : Blocks.STONE.getDefaultState();
+            container.set(i & 15, (i >> 8) & 15, (i >> 4) & 15, state);
+        }
+        var random = new Random(42);
+        for (int i = 0; i < wizards; i++) {
+            container.set(random.nextInt(16), random.nextInt(16), random.nextInt(16), Testmod.TEST_BLOCK_WIZARD.getDefaultState());
+        }
+        //noinspection unchecked
+        data = ((PalettedContainerAccessor<BlockState>)container).getData();
+    }
+
+    @Benchmark
+    public void scan(Blackhole blackhole) {
+        WizardPaletteScanner.scan(map, data.palette(), data.storage(), (poly, index) -> blackhole.consume(index));
+    }
+}
@@ -0,0 +1,138 @@
+package nl.theepicblock.polymc.jmh;
+
+import io.github.theepicblock.polymc.api.wizard.Wizard;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.util.math.BlockPos;
+import nl.theepicblock.polymc.testmod.automated.EmptyWizard;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the heap used by the block wizard storage of {@link io.github.theepicblock.polymc.mixins.wizards.block.WorldChunkMixin}
+ * with {@link #WIZARDS} wizard blocks loaded. {@code boxed} is the {@code HashMap<BlockPos, Wizard>} per chunk that was used before,
+ * {@code packed} is the {@code Long2ObjectOpenHashMap} keyed by {@link BlockPos#asLong()}.
+ * <p>
+ * All entries share the same wizard, so only the storage itself is counted. The heap is read after a full GC,
+ * {@code retainedBytes} is the difference between an empty heap and one with all wizards stored.
+ * {@link WizardChunkStorageBenchmark} measures the same amount of wizard blocks in real chunks.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+public class WizardStorageBenchmark {
+    private static final int WIZARDS = 100_000;
+    private static final int WIZARDS_PER_CHUNK = 256;
+    private static final int LOOKUPS = 1024;
+
+    @Param({"boxed", "packed"})
+    public String storage;
+
+    private final Wizard wizard = new EmptyWizard();
+    private final BlockPos[] positions = new BlockPos[WIZARDS];
+    private final BlockPos[] lookups = new BlockPos[LOOKUPS];
+    private List<?> chunks;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Heap {
+        public long retainedBytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            retainedBytes = 0;
+        }
+    }
+
+    @Setup
+    public void setup() {
+        BenchmarkEnvironment.getServer();
+        var chunksPerRow = (int)Math.ceil(Math.sqrt(WIZARDS / (double)WIZARDS_PER_CHUNK));
+        var random = new Random(42);
+        for (int i = 0; i < WIZARDS; i++) {
+            var chunk = i / WIZARDS_PER_CHUNK;
+            var local = i % WIZARDS_PER_CHUNK;
+            positions[i] = new BlockPos((chunk % chunksPerRow) * 16 + (local & 15), 64 + random.nextInt(64), (chunk / chunksPerRow) * 16 + (local >> 4));
+        }
+        for (int i = 0; i < LOOKUPS; i++) {
+            // An equal position, but not the instance that was stored, like the positions setBlockState gets called with
+            lookups[i] = new BlockPos(positions[random.nextInt(WIZARDS)]);
+        }
+        chunks = fill();
+    }
+
+    /**
+     * Builds the storage for all wizards from an empty heap and reports how much of the heap it retains
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Object retainedHeap(Heap heap) {
+        chunks = null;
+        var before = usedHeap();
+        chunks = fill();
+        heap.retainedBytes = usedHeap() - before;
+        return chunks;
+    }
+
+    /**
+     * The lookup done for every block change, see {@code WorldChunkMixin#onSet}
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @OperationsPerInvocation(LOOKUPS)
+    @SuppressWarnings("unchecked")
+    public int lookup() {
+        var found = 0;
+        for (var pos : lookups) {
+            var chunkIndex = indexOf(pos);
+            if (storage.equals("boxed")) {
+                if (((Map<BlockPos, Wizard>)chunks.get(chunkIndex)).get(pos) != null) found++;
+            } else {
+                if (((Long2ObjectOpenHashMap<Wizard>)chunks.get(chunkIndex)).get(pos.asLong()) != null) found++;
+            }
+        }
+        return found;
+    }
+
+    private List<?> fill() {
+        var ret = new ArrayList<>();
+        for (int i = 0; i < WIZARDS; i += WIZARDS_PER_CHUNK) {
+            if (storage.equals("boxed")) {
+                var map = new HashMap<BlockPos, Wizard>();
+                for (int j = i; j < i + WIZARDS_PER_CHUNK && j < WIZARDS; j++) {
+                    // The old storage kept its own immutable copy of each position
+                    map.put(new BlockPos(positions[j]), wizard);
+                }
+                ret.add(map);
+            } else {
+                var map = new Long2ObjectOpenHashMap<Wizard>();
+                for (int j = i; j < i + WIZARDS_PER_CHUNK && j < WIZARDS; j++) {
+                    map.put(positions[j].asLong(), wizard);
+                }
+                ret.add(map);
+            }
+        }
+        return ret;
+    }
+
+    private int indexOf(BlockPos pos) {
+        var chunksPerRow = (int)Math.ceil(Math.sqrt(WIZARDS / (double)WIZARDS_PER_CHUNK));
+        return (pos.getZ() >> 4) * chunksPerRow + (pos.getX() >> 4);
+    }
+
+    private static long usedHeap() {
+        var memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
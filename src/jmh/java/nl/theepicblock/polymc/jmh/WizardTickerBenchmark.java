@@ -0,0 +1,168 @@
+package nl.theepicblock.polymc.jmh;
+
+import io.github.theepicblock.polymc.PolyMc;
+import io.github.theepicblock.polymc.api.PolyMap;
+import io.github.theepicblock.polymc.api.wizard.Wizard;
+import io.github.theepicblock.polymc.impl.poly.wizard.WizardTickerRegistry;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import it.unimi.dsi.fastutil.objects.ObjectLists;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectArrayMap;
+import net.minecraft.util.math.ChunkPos;
+import nl.theepicblock.polymc.testmod.automated.EmptyWizard;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Compares the {@link WizardTickerRegistry} with the synchronized collections that were used for threaded mode before.
+ * Every tick, the main thread replaces {@link #CHURN} of the {@link #WIZARDS} block wizards. The updater thread iterates all of them.
+ * The {@code contended} group runs both at once, comparing its main thread time with {@link #tick()} shows the cost of contention.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class WizardTickerBenchmark {
+    private static final int WIZARDS = 10_000;
+    private static final int WIZARDS_PER_CHUNK = 16;
+    private static final int CHURN = 100;
+
+    @Param({"synchronized", "copyOnWrite"})
+    public String registry;
+
+    private TickerStore store;
+    private PolyMap map;
+    private final ChunkPos[] positions = new ChunkPos[WIZARDS];
+    private final Wizard[] current = new Wizard[WIZARDS];
+    private final Wizard[] spare = new Wizard[WIZARDS];
+    private int cursor;
+
+    @Setup
+    public void setup() {
+        BenchmarkEnvironment.getServer();
+        map = PolyMc.getMainMap();
+        store = registry.equals("synchronized") ? new SynchronizedStore() : new CopyOnWriteStore();
+
+        var chunksPerRow = (int)Math.ceil(Math.sqrt(WIZARDS / (double)WIZARDS_PER_CHUNK));
+        for (int i = 0; i < WIZARDS; i++) {
+            var chunk = i / WIZARDS_PER_CHUNK;
+            positions[i] = new ChunkPos(chunk % chunksPerRow, chunk / chunksPerRow);
+            current[i] = new EmptyWizard();
+            spare[i] = new EmptyWizard();
+            store.add(map, positions[i], current[i]);
+        }
+        store.endTick();
+    }
+
+    /**
+     * One tick on the main thread, without anything else running
+     */
+    @Benchmark
+    public void tick() {
+        churn();
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(1)
+    public void mainThread() {
+        churn();
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(1)
+    public void updaterThread(Blackhole blackhole) {
+        store.forEachWizard(blackhole::consume);
+    }
+
+    private void churn() {
+        for (int i = 0; i < CHURN; i++) {
+            var index = cursor;
+            cursor = (cursor + 1) % WIZARDS;
+
+            var old = current[index];
+            store.remove(map, positions[index], old);
+            current[index] = spare[index];
+            spare[index] = old;
+            store.add(map, positions[index], current[index]);
+        }
+        store.endTick();
+    }
+
+    private interface TickerStore {
+        void add(PolyMap map, ChunkPos pos, Wizard wizard);
+        void remove(PolyMap map, ChunkPos pos, Wizard wizard);
+        void endTick();
+        /**
+         * Called from the updater thread
+         */
+        void forEachWizard(Consumer<Wizard> consumer);
+    }
+
+    /**
+     * The way WorldMixin used to store the tickers in threaded mode
+     */
+    private static class SynchronizedStore implements TickerStore {
+        private final Map<PolyMap, Map<ChunkPos, List<Wizard>>> tickers = new Reference2ObjectArrayMap<>();
+
+        @Override
+        public void add(PolyMap map, ChunkPos pos, Wizard wizard) {
+            tickers.computeIfAbsent(map, v -> new ConcurrentHashMap<>())
+                    .computeIfAbsent(pos, v -> ObjectLists.synchronize(new ObjectArrayList<>()))
+                    .add(wizard);
+        }
+
+        @Override
+        public void remove(PolyMap map, ChunkPos pos, Wizard wizard) {
+            var wizardsPerPos = tickers.get(map);
+            if (wizardsPerPos == null) return;
+            var wizardList = wizardsPerPos.get(pos);
+            if (wizardList == null) return;
+            wizardList.remove(wizard);
+            if (wizardList.isEmpty()) wizardsPerPos.remove(pos);
+        }
+
+        @Override
+        public void endTick() {}
+
+        @Override
+        public void forEachWizard(Consumer<Wizard> consumer) {
+            tickers.forEach((map, wizardsPerPos) -> wizardsPerPos.forEach((pos, wizards) -> wizards.forEach(consumer)));
+        }
+    }
+
+    private static class CopyOnWriteStore implements TickerStore {
+        private final WizardTickerRegistry registry = new WizardTickerRegistry();
+
+        @Override
+        public void add(PolyMap map, ChunkPos pos, Wizard wizard) {
+            // Only watched chunks end up in the snapshot
+            registry.onWatched(map, pos.toLong());
+            registry.addBlockTicker(map, pos, wizard);
+        }
+
+        @Override
+        public void remove(PolyMap map, ChunkPos pos, Wizard wizard) {
+            registry.removeBlockTicker(map, pos, wizard);
+        }
+
+        @Override
+        public void endTick() {
+            registry.publish();
+        }
+
+        @Override
+        public void forEachWizard(Consumer<Wizard> consumer) {
+            for (var ticker : registry.getSnapshot().blocks()) {
+                ticker.wizards().forEach(consumer);
+            }
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package nl.theepicblock.polymc.jmh.standalone;
+
+import io.github.theepicblock.polymc.impl.misc.ClientStateIdTable;
+import io.github.theepicblock.polymc.impl.misc.IdListPaletteTranscoder;
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Compares {@link IdListPaletteTranscoder} with the element-by-element loop that
+ * {@link io.github.theepicblock.polymc.mixins.block.implementations.IdListImplementation} used before.
+ * Sections are 4096 entries, like block state containers.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IdListTranscoderBenchmark {
+    private static final int SIZE = 4096;
+
+    @Param({"9", "12", "15", "16"})
+    public int elementBits;
+
+    /**
+     * How much of the section consists of states that need remapping.
+     * 0 is a fully vanilla section.
+     */
+    @Param({"0", "0.1", "1"})
+    public double moddedFraction;
+
+    private long[] data;
+    private ClientStateIdTable table;
+    /**
+     * Mimics {@code Block.getStateFromRawId} followed by {@code PolyMap#getClientStateRawId}
+     */
+    private IntUnaryOperator slowLookup;
+
+    @Setup
+    public void setup() {
+        var states = 1 << elementBits;
+        var vanillaStates = states / 2;
+
+        // The upper half of the ids are "modded" and get mapped to the lower half
+        var rawTable = new int[states];
+        var stateObjects = new Object[states];
+        var stateToClientId = new Reference2IntOpenHashMap<Object>();
+        for (int i = 0; i < states; i++) {
+            rawTable[i] = i < vanillaStates ? i : i - vanillaStates;
+            stateObjects[i] = new Object();
+            stateToClientId.put(stateObjects[i], rawTable[i]);
+        }
+        this.table = new ClientStateIdTable(rawTable);
+        this.slowLookup = id -> stateToClientId.getInt(stateObjects[id]);
+
+        var random = new Random(42);
+        var elementsPerLong = 64 / elementBits;
+        this.data = new long[(SIZE + elementsPerLong - 1) / elementsPerLong];
+        for (int i = 0; i < SIZE; i++) {
+            long id = random.nextDouble() < moddedFraction ? vanillaStates + random.nextInt(vanillaStates) : random.nextInt(vanillaStates);
+            data[i / elementsPerLong] |= id << (elementBits * (i % elementsPerLong));
+        }
+    }
+
+    @Benchmark
+    public long[] transcoder() {
+        return IdListPaletteTranscoder.transcode(data, elementBits, SIZE, table, slowLookup);
+    }
+
+    @Benchmark
+    public long[] legacyLoop() {
+        return legacyLoop(data, elementBits, SIZE, slowLookup);
+    }
+
+    /**
+     * The old loop, but using the precomputed table. Isolates the effect of the new loop from the effect of the table.
+     */
+    @Benchmark
+    public long[] legacyLoopWithTable() {
+        return legacyLoop(data, elementBits, SIZE, table::get);
+    }
+
+    private static long[] legacyLoop(long[] oldArray, int elementBits, int size, IntUnaryOperator transform) {
+        var newArray = new long[oldArray.length];
+
+        var elementsPerLong = (char)(64 / elementBits);
+        var maxValue = (1L << elementBits) - 1L;
+
+        int i = 0;
+        a: for (int j = 0; j < oldArray.length; j++) {
+            long oldLong = oldArray[j];
+            long newLong = 0;
+            for (int k = 0; k < elementsPerLong; k++) {
+                var oldElementValue = oldLong & maxValue;
+                long newElementValue = transform.applyAsInt((int)oldElementValue);
+
+                newLong |= newElementValue << (elementBits * k);
+                oldLong >>= elementBits;
+
+                i++;
+                if (i >= size) break a;
+            }
+            newArray[j] = newLong;
+        }
+        return newArray;
+    }
+}
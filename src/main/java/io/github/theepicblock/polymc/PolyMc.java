@@ -26,12 +26,16 @@ import io.github.theepicblock.polymc.impl.ConfigManager;
 import io.github.theepicblock.polymc.impl.PolyMcCommands;
 import io.github.theepicblock.polymc.impl.generator.Generator;
 import io.github.theepicblock.polymc.impl.misc.BlockIdRemapper;
+import io.github.theepicblock.polymc.impl.misc.PolyMapCohorts;
 import io.github.theepicblock.polymc.impl.misc.QslRegistryCompat;
 import io.github.theepicblock.polymc.impl.misc.logging.Log4JWrapper;
 import io.github.theepicblock.polymc.impl.misc.logging.SimpleLogger;
 import io.github.theepicblock.polymc.impl.poly.wizard.PacketCountManager;
 import io.github.theepicblock.polymc.impl.poly.wizard.RegularWizardUpdater;
 import io.github.theepicblock.polymc.impl.poly.wizard.ThreadedWizardUpdater;
+import io.github.theepicblock.polymc.impl.poly.wizard.WizardLod;
+import io.github.theepicblock.polymc.impl.poly.wizard.WizardMaterializationQueue;
+import io.github.theepicblock.polymc.impl.poly.wizard.WizardViewArena;
 import net.fabricmc.api.ModInitializer;
 import net.fabricmc.fabric.api.networking.v1.ServerConfigurationConnectionEvents;
 import net.fabricmc.loader.api.FabricLoader;
@@ -128,6 +132,10 @@ public class PolyMc implements ModInitializer {
         }
 
         PacketCountManager.registerEvents();
+        PolyMapCohorts.registerEvents();
+        WizardViewArena.registerEvents();
+        WizardMaterializationQueue.registerEvents();
+        WizardLod.registerEvents();
 
         if (FabricLoader.getInstance().isModLoaded("quilt_registry")) {
             QslRegistryCompat.init();
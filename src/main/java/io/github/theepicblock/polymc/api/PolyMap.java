@@ -24,6 +24,7 @@ import io.github.theepicblock.polymc.api.item.ItemLocation;
 import io.github.theepicblock.polymc.api.item.ItemPoly;
 import io.github.theepicblock.polymc.api.resource.PolyMcResourcePack;
 import io.github.theepicblock.polymc.impl.Util;
+import io.github.theepicblock.polymc.impl.misc.ClientStateIdTable;
 import io.github.theepicblock.polymc.impl.misc.logging.SimpleLogger;
 import io.github.theepicblock.polymc.mixins.entity.EntityAttributesFilteringMixin;
 import io.github.theepicblock.polymc.mixins.gui.GuiPolyImplementation;
@@ -73,6 +74,24 @@ public interface PolyMap {
         return Block.STATE_IDS.getRawId(clientState);
     }
 
+    /**
+     * @return a precomputed table mapping serverside raw ids to clientside raw ids, or null if this map doesn't have one.
+     */
+    @ApiStatus.Internal
+    default @Nullable ClientStateIdTable getClientStateIdTable() {
+        return null;
+    }
+
+    /**
+     * Specifies if {@link #getClientState(BlockState, ServerPlayerEntity)} returns the same result for every player using this map.
+     * If this is true, serialized chunk sections can be shared between those players.
+     * @see io.github.theepicblock.polymc.impl.misc.SectionPacketCache
+     */
+    @ApiStatus.Internal
+    default boolean hasPlayerIndependentBlockStates() {
+        return false;
+    }
+
     /**
      * @return the {@link ItemPoly} that this PolyMap associates with this {@link Item}.
      */
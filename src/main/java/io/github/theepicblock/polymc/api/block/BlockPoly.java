@@ -50,4 +50,23 @@ public interface BlockPoly extends DebugInfoProvider<Block> {
     default boolean hasWizard() {
         return false;
     }
+
+    /**
+     * Block wizards are despawned for players that are too far away from them, see {@code wizardRenderDistance} in the config.
+     * This happens per chunk, a chunk stays visible as long as one of its wizard blocks wants to be.
+     * It's decided before the wizards are created, which is why this is part of the poly and not the wizard.
+     * @param defaultDistance the distance from the config, in blocks
+     * @return the distance in blocks at which the wizards of this poly should be despawned
+     */
+    default int getWizardRenderDistance(int defaultDistance) {
+        return defaultDistance;
+    }
+
+    /**
+     * PolyMc precomputes the result of {@link #getClientBlock(BlockState)} for every state when the PolyMap is built.
+     * Return false if the result can change after that, then {@link #getClientBlock(BlockState)} will be called every time instead.
+     */
+    default boolean isCacheable() {
+        return true;
+    }
 }
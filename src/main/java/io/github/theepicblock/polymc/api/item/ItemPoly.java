@@ -47,4 +47,12 @@ public interface ItemPoly extends DebugInfoProvider<Item> {
     default void addToResourcePack(Item item, ModdedResources moddedResources, PolyMcResourcePack pack, SimpleLogger logger) {
 
     }
+
+    /**
+     * PolyMc caches the result of {@link #getClientItem(ItemStack, ServerPlayerEntity, ItemLocation)} based on the item, nbt and location.
+     * Return false if the result can depend on anything else, such as the player or the stack's count.
+     */
+    default boolean isCacheable() {
+        return true;
+    }
 }
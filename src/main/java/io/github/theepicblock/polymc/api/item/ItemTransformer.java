@@ -1,6 +1,7 @@
 package io.github.theepicblock.polymc.api.item;
 
 import io.github.theepicblock.polymc.api.PolyMap;
+import net.minecraft.item.Item;
 import net.minecraft.item.ItemStack;
 import net.minecraft.server.network.ServerPlayerEntity;
 import org.jetbrains.annotations.Nullable;
@@ -33,4 +34,25 @@ public interface ItemTransformer {
     default ItemStack transform(ItemStack input, @Nullable ServerPlayerEntity player, @Nullable ItemLocation location) {
         return input;
     }
+
+    /**
+     * PolyMc caches the result of {@link PolyMap#getClientItem(ItemStack, ServerPlayerEntity, ItemLocation)} based on the item, nbt and location.
+     * Return false if the result of this transformer can depend on anything else, such as the player or the stack's count.
+     * This will disable the cache for the entire map.
+     */
+    default boolean isCacheable() {
+        return true;
+    }
+
+    /**
+     * Declares which stacks without nbt this transformer might change.
+     * Stacks without nbt whose item isn't affected by any transformer will skip the transformers entirely,
+     * so it's recommended to override this if the transformer only cares about specific items or nbt.
+     * Stacks with nbt are always passed to the transformers.
+     * @param item the item of the stack
+     * @return false if this transformer will always return {@code input} unchanged for a stack of this item without nbt
+     */
+    default boolean mayTransform(Item item) {
+        return true;
+    }
 }
@@ -11,4 +11,14 @@ public interface PacketConsumer {
 
     @ApiStatus.Internal
     void sendBatched();
+
+    /**
+     * @return false if some of the players that can see the entities of this consumer might've been left out,
+     * for example because their packets are being throttled or because the consumer was built from an outdated snapshot of the watchers.
+     * Those players will miss any packets sent to this consumer, so relative moves shouldn't be sent through it
+     */
+    @ApiStatus.Internal
+    default boolean reachesAllWatchers() {
+        return true;
+    }
 }
@@ -25,6 +25,7 @@ public class VItemFrame extends AbstractVirtualEntity {
                 Vec3d.ZERO,
                 0
         ));
+        this.onSpawned();
     }
 
     public void sendItemStack(PacketConsumer player, ItemStack stack) {
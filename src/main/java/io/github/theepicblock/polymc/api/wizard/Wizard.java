@@ -117,6 +117,6 @@ public abstract class Wizard {
     @ThreadedWizardUpdater.Unsafe
     public List<ServerPlayerEntity> getPlayersWatchingChunk() {
         return this.getWorld().getChunkManager().threadedAnvilChunkStorage.getPlayersWatchingChunk(
-                new ChunkPos((int)this.getPosition().x >> 4, (int)this.getPosition().z >> 4), false);
+                new ChunkPos(BlockPos.ofFloored(this.getPosition())), false);
     }
 }
@@ -39,7 +39,7 @@ import java.util.List;
  */
 @SuppressWarnings({"unused", "MismatchedQueryAndUpdateOfCollection", "JavadocReference"})
 public class Config {
-    public static final int LATEST_VERSION = 12;
+    public static final int LATEST_VERSION = 17;
     public MiscConfig misc;
     public boolean alwaysSendFullNbt;
     private int configVersion;
@@ -49,6 +49,14 @@ public class Config {
     public boolean forceBlockIdIntControl;
     public int maxPacketsPerSecond;
     public boolean blockItemMatching;
+    public int clientItemCacheSize;
+    public boolean useGenerationCache;
+    public int wizardUpdateRate;
+    public int wizardUpdateThreads;
+    public long wizardMaterializationBudget;
+    public int wizardRenderDistance;
+    public int wizardRenderDistanceHysteresis;
+    public int wizardReducedUpdateDistance;
 
     public int getConfigVersion() {
         return configVersion;
@@ -19,6 +19,7 @@ package io.github.theepicblock.polymc.impl;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.gson.JsonObject;
 import io.github.theepicblock.polymc.PolyMc;
 import io.github.theepicblock.polymc.api.DebugInfoProvider;
@@ -32,6 +33,8 @@ import io.github.theepicblock.polymc.api.item.ItemLocation;
 import io.github.theepicblock.polymc.api.item.ItemPoly;
 import io.github.theepicblock.polymc.api.item.ItemTransformer;
 import io.github.theepicblock.polymc.api.resource.PolyMcResourcePack;
+import io.github.theepicblock.polymc.impl.misc.ClientItemCache;
+import io.github.theepicblock.polymc.impl.misc.ClientStateIdTable;
 import io.github.theepicblock.polymc.impl.misc.logging.SimpleLogger;
 import io.github.theepicblock.polymc.impl.resource.ModdedResourceContainerImpl;
 import io.github.theepicblock.polymc.impl.resource.ResourcePackImplementation;
@@ -44,6 +47,7 @@ import net.minecraft.item.Item;
 import net.minecraft.item.ItemStack;
 import net.minecraft.item.Items;
 import net.minecraft.nbt.NbtCompound;
+import net.minecraft.registry.Registries;
 import net.minecraft.screen.ScreenHandlerType;
 import net.minecraft.server.network.ServerPlayerEntity;
 import net.minecraft.text.Text;
@@ -54,6 +58,7 @@ import org.jetbrains.annotations.Nullable;
 
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
@@ -80,6 +85,12 @@ public class PolyMapImpl implements PolyMap {
     private final ImmutableList<SharedValuesKey.ResourceContainer> sharedValueResources;
 
     private final boolean hasBlockWizards;
+    private final @Nullable ClientItemCache clientItemCache;
+    /**
+     * Items for which stacks without nbt might be changed by one of the {@link #globalItemPolys}
+     */
+    private final ImmutableSet<Item> transformedPlainItems;
+    private final ClientStateIdTable clientStateIdTable;
 
     public PolyMapImpl(ImmutableMap<Item,ItemPoly> itemPolys,
                        ItemTransformer[] globalItemPolys,
@@ -95,30 +106,95 @@ public class PolyMapImpl implements PolyMap {
         this.sharedValueResources = sharedValueResources;
 
         this.hasBlockWizards = blockPolys.values().stream().anyMatch(BlockPoly::hasWizard);
+        this.clientStateIdTable = ClientStateIdTable.build(this);
+
+        this.transformedPlainItems = Registries.ITEM.stream()
+                .filter(item -> Arrays.stream(globalItemPolys).anyMatch(transformer -> transformer.mayTransform(item)))
+                .collect(ImmutableSet.toImmutableSet());
+
+        var cacheSize = ConfigManager.getConfig().clientItemCacheSize;
+        var transformersCacheable = Arrays.stream(globalItemPolys).allMatch(ItemTransformer::isCacheable);
+        this.clientItemCache = cacheSize > 0 && transformersCacheable ? new ClientItemCache(cacheSize) : null;
     }
 
     @Override
     public ItemStack getClientItem(ItemStack serverItem, @Nullable ServerPlayerEntity player, @Nullable ItemLocation location) {
+        var poly = itemPolys.get(serverItem.getItem());
+        var hasNbt = serverItem.hasNbt();
+        if (poly == null && !hasNbt && !transformedPlainItems.contains(serverItem.getItem())) {
+            // Nothing will touch this stack
+            return serverItem;
+        }
+
+        var addOriginalNbt = player == null || player.isCreative() || location == ItemLocation.CREATIVE || ALWAYS_ADD_CREATIVE_NBT;
+
+        // Stacks without a poly or nbt are about as cheap to transform as they are to look up
+        var isCacheable = poly == null ? hasNbt : poly.isCacheable();
+        var useCache = clientItemCache != null && !serverItem.isEmpty() && isCacheable;
+        if (useCache) {
+            var cached = clientItemCache.get(serverItem, location, addOriginalNbt);
+            if (cached != null) return cached;
+        }
+
+        var ret = createClientItem(serverItem, poly, player, location, addOriginalNbt);
+
+        if (useCache) {
+            clientItemCache.put(serverItem, location, addOriginalNbt, ret);
+        }
+        return ret;
+    }
+
+    private ItemStack createClientItem(ItemStack serverItem, @Nullable ItemPoly poly, @Nullable ServerPlayerEntity player, @Nullable ItemLocation location, boolean addOriginalNbt) {
         ItemStack ret = serverItem;
-        NbtCompound originalNbt = serverItem.writeNbt(new NbtCompound());
 
-        ItemPoly poly = itemPolys.get(serverItem.getItem());
         if (poly != null) ret = poly.getClientItem(serverItem, player, location);
 
         for (ItemTransformer globalPoly : globalItemPolys) {
             ret = globalPoly.transform(serverItem, ret, this, player, location);
         }
 
-        if ((player == null || player.isCreative() || location == ItemLocation.CREATIVE || this.ALWAYS_ADD_CREATIVE_NBT) && !ItemStack.canCombine(serverItem, ret) && !serverItem.isEmpty()) {
+        if (addOriginalNbt && !ItemStack.canCombine(serverItem, ret) && !serverItem.isEmpty()) {
             // Preserves the nbt of the original item, so it can be reverted
-            ret = ret.copy();
+            // This is only captured here, as writing the nbt is quite expensive and most stacks won't need it
+            NbtCompound originalNbt = serverItem.writeNbt(new NbtCompound());
             originalNbt.remove("Count");
+            ret = ret.copy();
             ret.setSubNbt(ORIGINAL_ITEM_NBT, originalNbt);
         }
 
         return ret;
     }
 
+    @Override
+    public BlockState getClientState(BlockState serverBlock, @Nullable ServerPlayerEntity player) {
+        var clientId = clientStateIdTable.get(Block.STATE_IDS.getRawId(serverBlock));
+        if (clientId == ClientStateIdTable.UNCACHED) {
+            return PolyMap.super.getClientState(serverBlock, player);
+        }
+        return Block.STATE_IDS.get(clientId);
+    }
+
+    @Override
+    public int getClientStateRawId(BlockState state, ServerPlayerEntity playerEntity) {
+        var clientId = clientStateIdTable.get(Block.STATE_IDS.getRawId(state));
+        if (clientId == ClientStateIdTable.UNCACHED) {
+            return PolyMap.super.getClientStateRawId(state, playerEntity);
+        }
+        return clientId;
+    }
+
+    @Override
+    public ClientStateIdTable getClientStateIdTable() {
+        return clientStateIdTable;
+    }
+
+    /**
+     * @return the cache used by {@link #getClientItem(ItemStack, ServerPlayerEntity, ItemLocation)}, or null if caching is disabled.
+     */
+    public @Nullable ClientItemCache getClientItemCache() {
+        return clientItemCache;
+    }
+
     @Override
     public ItemPoly getItemPoly(Item item) {
         return itemPolys.get(item);
@@ -165,6 +241,11 @@ public class PolyMapImpl implements PolyMap {
         return true;
     }
 
+    @Override
+    public boolean hasPlayerIndependentBlockStates() {
+        return true;
+    }
+
     @Override
     public boolean hasBlockWizards() {
         return hasBlockWizards;
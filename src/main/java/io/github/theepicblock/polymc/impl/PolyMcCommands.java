@@ -20,15 +20,20 @@ package io.github.theepicblock.polymc.impl;
 import com.mojang.brigadier.Command;
 import com.mojang.brigadier.LiteralMessage;
 import com.mojang.brigadier.context.CommandContext;
+import com.mojang.brigadier.exceptions.CommandSyntaxException;
 import com.mojang.brigadier.exceptions.SimpleCommandExceptionType;
 import io.github.theepicblock.polymc.PolyMc;
 import io.github.theepicblock.polymc.api.misc.PolyMapProvider;
 import io.github.theepicblock.polymc.impl.misc.PolyDumper;
+import io.github.theepicblock.polymc.impl.misc.SectionPacketCache;
 import io.github.theepicblock.polymc.impl.misc.logging.CommandSourceLogger;
 import io.github.theepicblock.polymc.impl.misc.logging.ErrorTrackerWrapper;
 import io.github.theepicblock.polymc.impl.misc.logging.SimpleLogger;
+import io.github.theepicblock.polymc.impl.mixin.WizardMaterializationDuck;
+import io.github.theepicblock.polymc.impl.mixin.WizardTickerDuck;
 import io.github.theepicblock.polymc.impl.poly.wizard.PacketCountManager;
 import io.github.theepicblock.polymc.impl.poly.wizard.ThreadedWizardUpdater;
+import io.github.theepicblock.polymc.impl.poly.wizard.WizardMaterializationQueue;
 import io.github.theepicblock.polymc.impl.resource.ResourcePackGenerator;
 import io.github.theepicblock.polymc.mixins.TACSAccessor;
 import net.fabricmc.fabric.api.command.v2.CommandRegistrationCallback;
@@ -86,7 +91,17 @@ public class PolyMcCommands {
                             .then(literal("getWizardRestrictions")
                                     .executes(context -> doGetWizardRestrictions(context, context.getSource().getPlayerOrThrow()))
                                     .then(CommandManager.argument("player", EntityArgumentType.player())
-                                            .executes(context -> doGetWizardRestrictions(context, EntityArgumentType.getPlayer(context, "player"))))))
+                                            .executes(context -> doGetWizardRestrictions(context, EntityArgumentType.getPlayer(context, "player")))))
+                            .then(literal("chunkCache")
+                                    .executes(PolyMcCommands::doGetChunkCacheStats))
+                            .then(literal("itemCache")
+                                    .executes(PolyMcCommands::doGetItemCacheStats))
+                            .then(literal("wizardUpdater")
+                                    .executes(PolyMcCommands::doGetWizardUpdaterStats))
+                            .then(literal("wizardMaterialization")
+                                    .executes(PolyMcCommands::doGetWizardMaterializationStats))
+                            .then(literal("wizardTickers")
+                                    .executes(PolyMcCommands::doGetWizardTickerStats)))
                     .then(literal("generate")
                             .then(literal("resources")
                                     .executes((context -> {
@@ -107,9 +122,9 @@ public class PolyMcCommands {
 
                                                 // Write pack to file
                                                 try {
-                                                    ResourcePackGenerator.cleanAndWrite(pack, "resource", logger);
+                                                    var result = ResourcePackGenerator.cleanAndWrite(pack, "resource", logger);
 
-                                                    commandSource.info("Finished generating resource pack");
+                                                    commandSource.info("Finished generating resource pack: " + result);
                                                     commandSource.warn("Before hosting this resource pack, please make sure you have the legal right to redistribute the assets inside.");
                                                 } catch (Exception e) {
                                                     commandSource.error("An error occurred whilst trying to save the resource pack! Please check the console.");
@@ -187,6 +202,90 @@ public class PolyMcCommands {
         return Command.SINGLE_SUCCESS;
     }
 
+    public static int doGetChunkCacheStats(CommandContext<ServerCommandSource> context) {
+        var hits = SectionPacketCache.getHits();
+        var misses = SectionPacketCache.getMisses();
+        var total = hits + misses;
+        var hitRate = total == 0 ? 0 : hits * 100.0 / total;
+
+        var source = context.getSource();
+        source.sendFeedback(() -> Text.literal("=== Chunk section cache ===").formatted(Formatting.AQUA), false);
+        source.sendFeedback(() -> Text.literal("Hits: ").append(Text.literal(String.valueOf(hits)).formatted(Formatting.DARK_GREEN)), false);
+        source.sendFeedback(() -> Text.literal("Misses: ").append(Text.literal(String.valueOf(misses)).formatted(Formatting.YELLOW)), false);
+        source.sendFeedback(() -> Text.literal("Hit rate: ").append(Text.literal(String.format("%.1f%%", hitRate)).formatted(Formatting.AQUA)), false);
+        return Command.SINGLE_SUCCESS;
+    }
+
+    public static int doGetItemCacheStats(CommandContext<ServerCommandSource> context) throws CommandSyntaxException {
+        var player = context.getSource().getPlayer();
+        var map = player == null ? PolyMc.getMainMap() : PolyMapProvider.getPolyMap(player);
+        if (!(map instanceof PolyMapImpl mapImpl) || mapImpl.getClientItemCache() == null) {
+            throw new SimpleCommandExceptionType(new LiteralMessage("This PolyMap doesn't have an item cache")).create();
+        }
+        var cache = mapImpl.getClientItemCache();
+        var stats = cache.getStats();
+
+        var source = context.getSource();
+        source.sendFeedback(() -> Text.literal("=== Client item cache ===").formatted(Formatting.AQUA), false);
+        source.sendFeedback(() -> Text.literal("Hits: ").append(Text.literal(String.valueOf(stats.hitCount())).formatted(Formatting.DARK_GREEN)), false);
+        source.sendFeedback(() -> Text.literal("Misses: ").append(Text.literal(String.valueOf(stats.missCount())).formatted(Formatting.YELLOW)), false);
+        source.sendFeedback(() -> Text.literal("Hit rate: ").append(Text.literal(String.format("%.1f%%", stats.hitRate() * 100)).formatted(Formatting.AQUA)), false);
+        source.sendFeedback(() -> Text.literal("Evictions: ").append(Text.literal(String.valueOf(stats.evictionCount()))), false);
+        source.sendFeedback(() -> Text.literal("Size: ").append(Text.literal(String.valueOf(cache.size()))), false);
+        return Command.SINGLE_SUCCESS;
+    }
+
+    public static int doGetWizardUpdaterStats(CommandContext<ServerCommandSource> context) throws CommandSyntaxException {
+        if (ThreadedWizardUpdater.MAIN == null) {
+            throw new SimpleCommandExceptionType(new LiteralMessage("Wizard threading isn't enabled")).create();
+        }
+        var stats = ThreadedWizardUpdater.MAIN.getStats();
+
+        var source = context.getSource();
+        source.sendFeedback(() -> Text.literal("=== Wizard updater ===").formatted(Formatting.GOLD), false);
+        source.sendFeedback(() -> Text.literal("Update rate: ").append(Text.literal(String.format("%.1f/%d", stats.getAchievedRate(), stats.getTargetRate())).formatted(Formatting.AQUA)), false);
+        source.sendFeedback(() -> Text.literal("Threads: ").append(Text.literal(String.valueOf(stats.getThreads()))), false);
+        source.sendFeedback(() -> Text.literal("Frames: ").append(Text.literal(String.valueOf(stats.getFrames())).formatted(Formatting.DARK_GREEN)), false);
+        source.sendFeedback(() -> Text.literal("Skipped frames: ").append(Text.literal(String.valueOf(stats.getSkippedFrames())).formatted(Formatting.YELLOW)), false);
+        source.sendFeedback(() -> Text.literal("Late updates: ").append(Text.literal(String.valueOf(stats.getLateUpdates())).formatted(Formatting.YELLOW)), false);
+        for (var entry : stats.getLateUpdatesPerType(5)) {
+            source.sendFeedback(() -> Text.literal(" - " + entry.getKey().getName() + ": ").append(Text.literal(String.valueOf(entry.getValue())).formatted(Formatting.YELLOW)), false);
+        }
+        return Command.SINGLE_SUCCESS;
+    }
+
+    public static int doGetWizardMaterializationStats(CommandContext<ServerCommandSource> context) throws CommandSyntaxException {
+        if (!WizardMaterializationQueue.isEnabled()) {
+            throw new SimpleCommandExceptionType(new LiteralMessage("Wizards are spawned straight away, wizardMaterializationBudget is 0")).create();
+        }
+
+        var source = context.getSource();
+        source.sendFeedback(() -> Text.literal("=== Wizard materialization ===").formatted(Formatting.GOLD), false);
+        source.sendFeedback(() -> Text.literal("Budget: ").append(Text.literal(String.format("%.2fms", ConfigManager.getConfig().wizardMaterializationBudget / 1_000_000d)).formatted(Formatting.AQUA)), false);
+        for (var world : source.getServer().getWorlds()) {
+            var queue = ((WizardMaterializationDuck)world).polymc$getMaterializationQueue();
+            source.sendFeedback(() -> Text.literal(world.getRegistryKey().getValue().toString()).formatted(Formatting.GRAY), false);
+            source.sendFeedback(() -> Text.literal(" Queued: ").append(Text.literal(String.valueOf(queue.getDepth())).formatted(queue.getDepth() > 0 ? Formatting.YELLOW : Formatting.GREEN)), false);
+            source.sendFeedback(() -> Text.literal(" Last tick: ").append(Text.literal(String.format("%.2fms", queue.getLastTickNanos() / 1_000_000d)).formatted(Formatting.AQUA)), false);
+            source.sendFeedback(() -> Text.literal(" Handled: ").append(Text.literal(queue.getProcessed() + " in " + String.format("%.1fms", queue.getTotalNanos() / 1_000_000d)).formatted(Formatting.DARK_GREEN)), false);
+        }
+        return Command.SINGLE_SUCCESS;
+    }
+
+    public static int doGetWizardTickerStats(CommandContext<ServerCommandSource> context) {
+        var source = context.getSource();
+        source.sendFeedback(() -> Text.literal("=== Wizard tickers ===").formatted(Formatting.GOLD), false);
+        for (var world : source.getServer().getWorlds()) {
+            var registry = ((WizardTickerDuck)world).polymc$getTickerRegistry();
+            var active = registry.getActiveChunkCount();
+            var dormant = registry.getDormantChunkCount();
+            source.sendFeedback(() -> Text.literal(world.getRegistryKey().getValue().toString()).formatted(Formatting.GRAY), false);
+            source.sendFeedback(() -> Text.literal(" Active chunks: ").append(Text.literal(String.valueOf(active)).formatted(Formatting.GREEN)), false);
+            source.sendFeedback(() -> Text.literal(" Dormant chunks: ").append(Text.literal(String.valueOf(dormant)).formatted(Formatting.DARK_GRAY)), false);
+        }
+        return Command.SINGLE_SUCCESS;
+    }
+
     private static Text packetCount2Text(int count) {
         var t = Text.literal(String.valueOf(count));
         if (count > PacketCountManager.MAX_PACKETS * 1.6) {
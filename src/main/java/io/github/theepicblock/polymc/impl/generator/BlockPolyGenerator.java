@@ -22,25 +22,16 @@ import io.github.theepicblock.polymc.api.PolyRegistry;
 import io.github.theepicblock.polymc.api.block.BlockPoly;
 import io.github.theepicblock.polymc.api.block.BlockStateManager;
 import io.github.theepicblock.polymc.api.block.BlockStateProfile;
-import io.github.theepicblock.polymc.api.resource.ModdedResources;
-import io.github.theepicblock.polymc.impl.Util;
 import io.github.theepicblock.polymc.impl.misc.BooleanContainer;
 import io.github.theepicblock.polymc.impl.poly.block.FunctionBlockStatePoly;
 import io.github.theepicblock.polymc.impl.poly.block.SimpleReplacementPoly;
-import io.github.theepicblock.polymc.impl.resource.ModdedResourceContainerImpl;
-import io.github.theepicblock.polymc.mixins.block.SlabBlockAccessor;
 import io.github.theepicblock.polymc.mixins.block.TrapdoorBlockAccessor;
 import net.minecraft.block.*;
 import net.minecraft.block.entity.BlockEntity;
 import net.minecraft.fluid.FluidState;
-import net.minecraft.registry.Registries;
-import net.minecraft.registry.tag.BlockTags;
 import net.minecraft.state.property.Properties;
 import net.minecraft.state.property.Property;
 import net.minecraft.util.math.BlockPos;
-import net.minecraft.util.math.Direction;
-import net.minecraft.util.shape.VoxelShape;
-import net.minecraft.util.shape.VoxelShapes;
 import net.minecraft.world.BlockView;
 import org.jetbrains.annotations.Nullable;
 
@@ -48,13 +39,12 @@ import org.jetbrains.annotations.Nullable;
  * Class to automatically generate {@link BlockPoly}s for {@link Block}s
  */
 public class BlockPolyGenerator {
-    private static final ModdedResources RESOURCES = new ModdedResourceContainerImpl();
-
     /**
      * Generates the most suitable {@link BlockPoly} for a given {@link Block}
      */
     public static BlockPoly generatePoly(Block block, PolyRegistry registry) {
-        return new FunctionBlockStatePoly(block, (state, isUniqueCallback) -> registerClientState(state, isUniqueCallback, registry.getSharedValues(BlockStateManager.KEY)));
+        var analyzer = registry.getSharedValues(BlockStateAnalyzer.KEY);
+        return new FunctionBlockStatePoly(block, (state, isUniqueCallback) -> registerClientState(state, analyzer.get(state), isUniqueCallback, registry.getSharedValues(BlockStateManager.KEY)));
     }
 
     /**
@@ -62,50 +52,38 @@ public class BlockPolyGenerator {
      * @return a client state which best matches the moddedState
      */
     public static BlockState registerClientState(BlockState moddedState, BooleanContainer isUniqueCallback, BlockStateManager manager) {
-        var moddedBlock = moddedState.getBlock();
-        var fakeWorld = new FakedWorld(moddedState);
-
-        var blockId = Registries.BLOCK.getId(moddedBlock);
-        var blockStateDef = RESOURCES.getBlockState(blockId.getNamespace(), blockId.getPath());
-
-        // This following line works because it gets the best matching variant from the definition itself
-        // The effect is that all states which match up to the same entry get deduplicated
-        var modelId = blockStateDef != null ? blockId + "[" + blockStateDef.getVariantId(moddedState) + "]" : null;
+        return registerClientState(moddedState, BlockStateAnalyzer.analyze(moddedState), isUniqueCallback, manager);
+    }
 
-        //Get the state's collision shape.
-        VoxelShape collisionShape;
-        try {
-            collisionShape = moddedState.getCollisionShape(fakeWorld, BlockPos.ORIGIN);
-        } catch (Exception e) {
-            PolyMc.LOGGER.warn("Failed to get collision shape for " + moddedState.toString());
-            e.printStackTrace();
-            collisionShape = VoxelShapes.UNBOUNDED;
-        }
+    /**
+     * @param analysis the analysis of the moddedState, see {@link BlockStateAnalyzer}
+     * @param isUniqueCallback will be set to true if the return value is a unique block that'll only be used for the inputted moddedState
+     * @return a client state which best matches the moddedState
+     */
+    public static BlockState registerClientState(BlockState moddedState, BlockStateAnalyzer.Analysis analysis, BooleanContainer isUniqueCallback, BlockStateManager manager) {
+        var moddedBlock = moddedState.getBlock();
+        var modelId = analysis.modelId();
 
         //=== INVISIBLE BLOCKS ===
-        if (moddedState.getRenderType() == BlockRenderType.INVISIBLE) {
+        if (analysis.isInvisible()) {
             //This block is supposed to be invisible anyway
 
-            if (Block.isShapeFullCube(collisionShape)) {
+            if (analysis.isCollisionFullCube()) {
                 isUniqueCallback.set(false);
                 return Blocks.BARRIER.getDefaultState();
             }
 
-            if (collisionShape.isEmpty()) {
-                //Try to get its selection shape so we can decide between a structure void (which has a selection box) and air (which doesn't)
-                try {
-                    VoxelShape outlineShape = moddedState.getOutlineShape(fakeWorld, BlockPos.ORIGIN);
-
-                    if (outlineShape.isEmpty()) {
-                        isUniqueCallback.set(false);
-                        return Blocks.VOID_AIR.getDefaultState();
-                    } else {
-                        isUniqueCallback.set(false);
-                        return Blocks.STRUCTURE_VOID.getDefaultState();
-                    }
-                } catch (Exception e) {
+            if (analysis.isCollisionEmpty()) {
+                //Use its selection shape so we can decide between a structure void (which has a selection box) and air (which doesn't)
+                if (analysis.outline() == BlockStateAnalyzer.OutlineType.FAILED) {
                     PolyMc.LOGGER.warn("Failed to get outline shape for " + moddedState);
-                    e.printStackTrace();
+                    if (analysis.outlineShapeException() != null) analysis.outlineShapeException().printStackTrace();
+                } else if (analysis.outline() == BlockStateAnalyzer.OutlineType.EMPTY) {
+                    isUniqueCallback.set(false);
+                    return Blocks.VOID_AIR.getDefaultState();
+                } else {
+                    isUniqueCallback.set(false);
+                    return Blocks.STRUCTURE_VOID.getDefaultState();
                 }
             }
 
@@ -122,7 +100,7 @@ public class BlockPolyGenerator {
         }
 
         //=== LEAVES ===
-        if (moddedBlock instanceof LeavesBlock || moddedState.isIn(BlockTags.LEAVES)) { //TODO I don't like that leaves can be set tags in datapacks, it might cause issues. However, as not every leaf block extends LeavesBlock I can't see much of a better option. Except to maybe check the id if it ends on "_leaves"
+        if (analysis.isLeaves()) { //TODO I don't like that leaves can be set tags in datapacks, it might cause issues. However, as not every leaf block extends LeavesBlock I can't see much of a better option. Except to maybe check the id if it ends on "_leaves"
             try {
                 isUniqueCallback.set(true);
 
@@ -168,7 +146,7 @@ public class BlockPolyGenerator {
             } catch (BlockStateManager.StateLimitReachedException ignored) {}
         }
 
-        if (Util.areEqual(collisionShape, SlabBlockAccessor.getBOTTOM_SHAPE())) {
+        if (analysis.isBottomSlabShaped()) {
             try {
                 isUniqueCallback.set(true);
                 return manager.requestBlockState(BlockStateProfile.SCULK_SENSOR_PROFILE.and(
@@ -189,9 +167,9 @@ public class BlockPolyGenerator {
 
         //=== FULL BLOCKS ===
         // Blocks that have a full top face and at least something on the bottom are considered full blocks. This works better for some blocks
-        if (Block.isFaceFullSquare(collisionShape, Direction.UP) && collisionShape.getMin(Direction.Axis.Y) <= 0) {
+        if (analysis.hasFullTopFace()) {
 
-            if (!moddedState.isOpaque()) {
+            if (!analysis.isOpaque()) {
                 // Chorus flowers are full cubes & are not opaque.
                 // There are only 4 available states to reuse though
                 try {
@@ -214,18 +192,18 @@ public class BlockPolyGenerator {
         }
 
         //=== NO COLLISION BLOCKS ===
-        if (collisionShape.isEmpty() && !(moddedState.getBlock() instanceof WallBlock)) {
+        if (analysis.isCollisionEmpty() && !(moddedState.getBlock() instanceof WallBlock)) {
 
             try {
-                if (moddedState.isIn(BlockTags.CLIMBABLE)) {
+                if (analysis.isClimbable()) {
                     isUniqueCallback.set(true);
                     return manager.requestBlockState(BlockStateProfile.CLIMBABLE_PROFILE, modelId);
                 }
             } catch (BlockStateManager.StateLimitReachedException ignored) {}
 
-            var outlineShape = moddedState.getOutlineShape(fakeWorld, BlockPos.ORIGIN);
+            var outline = analysis.getOutlineOrThrow();
 
-            if (outlineShape.isEmpty()) {
+            if (outline == BlockStateAnalyzer.OutlineType.EMPTY) {
                 try {
                     isUniqueCallback.set(true);
                     return manager.requestBlockState(BlockStateProfile.NO_COLLISION_WALL_PROFILE.and(
@@ -234,7 +212,7 @@ public class BlockPolyGenerator {
                 } catch (BlockStateManager.StateLimitReachedException ignored) {}
             }
 
-            if (outlineShape.getMax(Direction.Axis.Y) <= (1.0f / 16.0f)) {
+            if (outline.isFlat()) {
                 try {
                     isUniqueCallback.set(true);
                     return manager.requestBlockState(BlockStateProfile.PRESSURE_PLATE_PROFILE.and(
@@ -252,7 +230,7 @@ public class BlockPolyGenerator {
         }
 
         //=== FARMLAND-LIKE BLOCKS ===
-        if (Util.areEqual(collisionShape, Blocks.FARMLAND.getCollisionShape(Blocks.FARMLAND.getDefaultState(), fakeWorld, BlockPos.ORIGIN, ShapeContext.absent()))) {
+        if (analysis.isFarmlandShaped()) {
             try {
                 isUniqueCallback.set(true);
                 return manager.requestBlockState(BlockStateProfile.FARMLAND_PROFILE, modelId);
@@ -260,7 +238,7 @@ public class BlockPolyGenerator {
         }
 
         //=== CACTUS-LIKE BLOCKS ===
-        if (Util.areEqual(collisionShape, Blocks.CACTUS.getCollisionShape(Blocks.CACTUS.getDefaultState(), fakeWorld, BlockPos.ORIGIN, ShapeContext.absent()))) {
+        if (analysis.isCactusShaped()) {
             try {
                 isUniqueCallback.set(true);
                 return manager.requestBlockState(BlockStateProfile.CACTUS_PROFILE, modelId);
@@ -0,0 +1,202 @@
+package io.github.theepicblock.polymc.impl.generator;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import io.github.theepicblock.polymc.PolyMc;
+import io.github.theepicblock.polymc.api.resource.ModdedResources;
+import io.github.theepicblock.polymc.impl.ConfigManager;
+import io.github.theepicblock.polymc.impl.Util;
+import io.github.theepicblock.polymc.impl.resource.ResourceConstants;
+import net.fabricmc.loader.api.FabricLoader;
+import net.fabricmc.loader.api.ModContainer;
+import net.fabricmc.loader.api.metadata.ModMetadata;
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+import net.minecraft.registry.Registries;
+import net.minecraft.registry.tag.BlockTags;
+import net.minecraft.registry.tag.TagKey;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Stores {@link BlockStateAnalyzer.Analysis}es on disk, so they can be reused on the next start.
+ * The cache is keyed by a hash of the installed mods, the block registry, the block state definitions and the tags that are used during the analysis.
+ * If any of those change, the entire cache is thrown away.
+ */
+public class BlockStateAnalysisCache {
+    /**
+     * Increment this whenever the format or the meaning of the analyses changes
+     */
+    private static final int FORMAT_VERSION = 1;
+    private static final Path CACHE_FILE = FabricLoader.getInstance().getGameDir().resolve("polymc/cache/block_state_analyses.json");
+
+    private final Map<String, BlockStateAnalyzer.Analysis> analyses;
+
+    private BlockStateAnalysisCache(Map<String, BlockStateAnalyzer.Analysis> analyses) {
+        this.analyses = analyses;
+    }
+
+    /**
+     * The cache is disabled in development environments, as the mod versions won't change there when the code does
+     */
+    public static boolean isEnabled() {
+        return ConfigManager.getConfig().useGenerationCache && !FabricLoader.getInstance().isDevelopmentEnvironment();
+    }
+
+    public @Nullable BlockStateAnalyzer.Analysis get(BlockState state) {
+        return analyses.get(getKey(state));
+    }
+
+    /**
+     * @param hash the current hash, see {@link #computeHash(ModdedResources)}
+     * @return the cache, or null if there's no cache or if it is outdated
+     */
+    public static @Nullable BlockStateAnalysisCache load(String hash) {
+        if (!Files.exists(CACHE_FILE)) return null;
+
+        try (var reader = Files.newBufferedReader(CACHE_FILE, StandardCharsets.UTF_8)) {
+            var json = JsonParser.parseReader(reader).getAsJsonObject();
+            if (!hash.equals(json.get("hash").getAsString())) {
+                PolyMc.LOGGER.info("Block state analysis cache is outdated, it will be regenerated");
+                return null;
+            }
+
+            var analyses = new HashMap<String, BlockStateAnalyzer.Analysis>();
+            for (var entry : json.getAsJsonObject("states").entrySet()) {
+                analyses.put(entry.getKey(), fromJson(entry.getValue().getAsJsonObject()));
+            }
+            return new BlockStateAnalysisCache(analyses);
+        } catch (Exception e) {
+            PolyMc.LOGGER.warn("Failed to read the block state analysis cache, it will be regenerated");
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Writes all analyses of the specified states to disk, replacing the existing cache.
+     * Analyses that failed are skipped, so they're retried and reported on the next start.
+     * @param hash the current hash, see {@link #computeHash(ModdedResources)}
+     */
+    public static void save(String hash, List<BlockState> states, Map<BlockState, BlockStateAnalyzer.Analysis> analyses) {
+        var json = new JsonObject();
+        json.addProperty("hash", hash);
+        var statesJson = new JsonObject();
+        for (var state : states) {
+            var analysis = analyses.get(state);
+            if (analysis == null || analysis.outline() == BlockStateAnalyzer.OutlineType.FAILED) continue;
+            statesJson.add(getKey(state), toJson(analysis));
+        }
+        json.add("states", statesJson);
+
+        try {
+            Files.createDirectories(CACHE_FILE.getParent());
+            Files.writeString(CACHE_FILE, json.toString(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            PolyMc.LOGGER.warn("Failed to write the block state analysis cache");
+            e.printStackTrace();
+        }
+    }
+
+    private static String getKey(BlockState state) {
+        return Registries.BLOCK.getId(state.getBlock()) + "[" + Util.getPropertiesFromBlockState(state) + "]";
+    }
+
+    /**
+     * Hashes everything that might influence the analyses
+     * @param resources the resources the block state definitions are read from during the analysis
+     */
+    public static String computeHash(ModdedResources resources) {
+        Hasher hasher = Hashing.sha256().newHasher();
+        hasher.putInt(FORMAT_VERSION);
+
+        FabricLoader.getInstance().getAllMods().stream()
+                .map(ModContainer::getMetadata)
+                .sorted(Comparator.comparing(ModMetadata::getId))
+                .forEach(meta -> hasher.putString(meta.getId(), StandardCharsets.UTF_8)
+                        .putString(meta.getVersion().getFriendlyString(), StandardCharsets.UTF_8));
+
+        for (var block : Registries.BLOCK) {
+            hasher.putString(Registries.BLOCK.getId(block).toString(), StandardCharsets.UTF_8);
+            hasher.putInt(block.getStateManager().getStates().size());
+        }
+
+        // The model ids come from the block state definitions, which can change without any version changing (e.g. in a resource pack or a dev build)
+        for (var block : Registries.BLOCK) {
+            var id = Registries.BLOCK.getId(block);
+            hashAsset(hasher, resources, id.getNamespace(), ResourceConstants.blockstate(id.getPath()));
+        }
+
+        // Tags can be changed by datapacks without changing any versions
+        hashTag(hasher, BlockTags.LEAVES);
+        hashTag(hasher, BlockTags.CLIMBABLE);
+
+        return hasher.hash().toString();
+    }
+
+    private static void hashAsset(Hasher hasher, ModdedResources resources, String namespace, String path) {
+        var supplier = resources.getInputStreamSupplier(namespace, path);
+        if (supplier == null) {
+            hasher.putBoolean(false);
+            return;
+        }
+        hasher.putBoolean(true);
+        try (var stream = supplier.get()) {
+            hasher.putBytes(stream.readAllBytes());
+        } catch (IOException e) {
+            // Hashing the failure means the cache won't match until the asset can be read again
+            hasher.putString(e.toString(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static void hashTag(Hasher hasher, TagKey<Block> tag) {
+        hasher.putString(tag.id().toString(), StandardCharsets.UTF_8);
+        Registries.BLOCK.iterateEntries(tag).forEach(entry ->
+                hasher.putString(entry.getKey().orElseThrow().getValue().toString(), StandardCharsets.UTF_8));
+    }
+
+    private static JsonObject toJson(BlockStateAnalyzer.Analysis analysis) {
+        var json = new JsonObject();
+        if (analysis.modelId() != null) json.addProperty("model", analysis.modelId());
+        json.addProperty("invisible", analysis.isInvisible());
+        json.addProperty("fullCube", analysis.isCollisionFullCube());
+        json.addProperty("noCollision", analysis.isCollisionEmpty());
+        json.addProperty("fullTop", analysis.hasFullTopFace());
+        json.addProperty("slab", analysis.isBottomSlabShaped());
+        json.addProperty("farmland", analysis.isFarmlandShaped());
+        json.addProperty("cactus", analysis.isCactusShaped());
+        json.addProperty("opaque", analysis.isOpaque());
+        json.addProperty("leaves", analysis.isLeaves());
+        json.addProperty("climbable", analysis.isClimbable());
+        json.addProperty("outline", analysis.outline().name());
+        return json;
+    }
+
+    private static BlockStateAnalyzer.Analysis fromJson(JsonObject json) {
+        return new BlockStateAnalyzer.Analysis(
+                json.has("model") ? json.get("model").getAsString() : null,
+                json.get("invisible").getAsBoolean(),
+                json.get("fullCube").getAsBoolean(),
+                json.get("noCollision").getAsBoolean(),
+                json.get("fullTop").getAsBoolean(),
+                json.get("slab").getAsBoolean(),
+                json.get("farmland").getAsBoolean(),
+                json.get("cactus").getAsBoolean(),
+                json.get("opaque").getAsBoolean(),
+                json.get("leaves").getAsBoolean(),
+                json.get("climbable").getAsBoolean(),
+                BlockStateAnalyzer.OutlineType.valueOf(json.get("outline").getAsString()),
+                null
+        );
+    }
+}
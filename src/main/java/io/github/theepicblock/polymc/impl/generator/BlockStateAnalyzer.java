@@ -0,0 +1,189 @@
+package io.github.theepicblock.polymc.impl.generator;
+
+import io.github.theepicblock.polymc.PolyMc;
+import io.github.theepicblock.polymc.api.SharedValuesKey;
+import io.github.theepicblock.polymc.api.block.BlockStateMerger;
+import io.github.theepicblock.polymc.api.resource.ModdedResources;
+import io.github.theepicblock.polymc.impl.Util;
+import io.github.theepicblock.polymc.impl.resource.ModdedResourceContainerImpl;
+import io.github.theepicblock.polymc.mixins.block.SlabBlockAccessor;
+import net.minecraft.block.*;
+import net.minecraft.registry.Registries;
+import net.minecraft.registry.tag.BlockTags;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Direction;
+import net.minecraft.util.shape.VoxelShape;
+import net.minecraft.util.shape.VoxelShapes;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Computes everything {@link BlockPolyGenerator} needs to know about a modded block state before it can pick a client state.
+ * Querying shapes and reading the block state definitions is the slow part of generating block polys,
+ * but it doesn't depend on which client states are still available. That means it can be done for all blocks in parallel,
+ * whilst the client states themselves are still allocated sequentially, so the result is the same on every run.
+ * The analyses are also stored on disk by {@link BlockStateAnalysisCache}, so they don't need to be redone on every start.
+ */
+public class BlockStateAnalyzer {
+    public static final SharedValuesKey<BlockStateAnalyzer> KEY = new SharedValuesKey<>(registry -> new BlockStateAnalyzer(), null);
+    private static final ModdedResources RESOURCES = new ModdedResourceContainerImpl();
+
+    private final Map<BlockState, Analysis> analyses = new ConcurrentHashMap<>();
+
+    /**
+     * Analyses all the (normalized) states of these blocks.
+     * Analyses are loaded from the on-disk cache if it's still valid, the rest are computed in parallel.
+     * States that fail to be analysed are skipped, they'll be analysed again once they're needed, so the error is reported in the usual place.
+     */
+    public void precompute(Collection<Block> blocks) {
+        var states = blocks.stream()
+                .flatMap(block -> block.getStateManager().getStates().stream())
+                .map(BlockStateMerger.DEFAULT::normalize)
+                .distinct()
+                .toList();
+
+        var useCache = BlockStateAnalysisCache.isEnabled();
+        var hash = useCache ? BlockStateAnalysisCache.computeHash(RESOURCES) : null;
+        var cache = useCache ? BlockStateAnalysisCache.load(hash) : null;
+        List<BlockState> missing = states;
+        if (cache != null) {
+            missing = states.stream().filter(state -> {
+                var cached = cache.get(state);
+                if (cached != null) analyses.put(state, cached);
+                return cached == null;
+            }).toList();
+            PolyMc.LOGGER.info("Loaded " + (states.size() - missing.size()) + " block state analyses from the cache, " + missing.size() + " need to be computed");
+        }
+
+        missing.parallelStream().forEach(state -> {
+            try {
+                analyses.computeIfAbsent(state, BlockStateAnalyzer::analyze);
+            } catch (Exception ignored) {}
+        });
+
+        if (useCache && !missing.isEmpty()) {
+            BlockStateAnalysisCache.save(hash, states, analyses);
+        }
+    }
+
+    /**
+     * @return the analysis of this state, computing it if it wasn't precomputed
+     */
+    public Analysis get(BlockState state) {
+        var analysis = analyses.get(state);
+        if (analysis == null) {
+            analysis = analyze(state);
+            analyses.put(state, analysis);
+        }
+        return analysis;
+    }
+
+    public static Analysis analyze(BlockState moddedState) {
+        var moddedBlock = moddedState.getBlock();
+        var fakeWorld = new BlockPolyGenerator.FakedWorld(moddedState);
+
+        var blockId = Registries.BLOCK.getId(moddedBlock);
+        var blockStateDef = RESOURCES.getBlockState(blockId.getNamespace(), blockId.getPath());
+
+        // This following line works because it gets the best matching variant from the definition itself
+        // The effect is that all states which match up to the same entry get deduplicated
+        var modelId = blockStateDef != null ? blockId + "[" + blockStateDef.getVariantId(moddedState) + "]" : null;
+
+        //Get the state's collision shape.
+        VoxelShape collisionShape;
+        try {
+            collisionShape = moddedState.getCollisionShape(fakeWorld, BlockPos.ORIGIN);
+        } catch (Exception e) {
+            PolyMc.LOGGER.warn("Failed to get collision shape for " + moddedState.toString());
+            e.printStackTrace();
+            collisionShape = VoxelShapes.UNBOUNDED;
+        }
+
+        // The outline shape is only used for blocks without collision
+        var outline = OutlineType.NOT_COMPUTED;
+        RuntimeException outlineShapeException = null;
+        if (collisionShape.isEmpty()) {
+            try {
+                var outlineShape = moddedState.getOutlineShape(fakeWorld, BlockPos.ORIGIN);
+                if (outlineShape.isEmpty()) {
+                    outline = OutlineType.EMPTY;
+                } else if (outlineShape.getMax(Direction.Axis.Y) <= (1.0f / 16.0f)) {
+                    outline = OutlineType.FLAT;
+                } else {
+                    outline = OutlineType.OTHER;
+                }
+            } catch (RuntimeException e) {
+                outline = OutlineType.FAILED;
+                outlineShapeException = e;
+            }
+        }
+
+        return new Analysis(
+                modelId,
+                moddedState.getRenderType() == BlockRenderType.INVISIBLE,
+                Block.isShapeFullCube(collisionShape),
+                collisionShape.isEmpty(),
+                // Blocks that have a full top face and at least something on the bottom are considered full blocks. This works better for some blocks
+                Block.isFaceFullSquare(collisionShape, Direction.UP) && collisionShape.getMin(Direction.Axis.Y) <= 0,
+                Util.areEqual(collisionShape, SlabBlockAccessor.getBOTTOM_SHAPE()),
+                Util.areEqual(collisionShape, Blocks.FARMLAND.getCollisionShape(Blocks.FARMLAND.getDefaultState(), fakeWorld, BlockPos.ORIGIN, ShapeContext.absent())),
+                Util.areEqual(collisionShape, Blocks.CACTUS.getCollisionShape(Blocks.CACTUS.getDefaultState(), fakeWorld, BlockPos.ORIGIN, ShapeContext.absent())),
+                moddedState.isOpaque(),
+                moddedBlock instanceof LeavesBlock || moddedState.isIn(BlockTags.LEAVES),
+                moddedState.isIn(BlockTags.CLIMBABLE),
+                outline,
+                outlineShapeException
+        );
+    }
+
+    /**
+     * @param modelId a string that's the same for all states of a block that use the same model
+     * @param outline describes the outline shape, only computed if the state has no collision
+     * @param outlineShapeException the exception thrown whilst getting the outline shape, if {@code outline} is {@link OutlineType#FAILED}
+     */
+    public record Analysis(
+            @Nullable String modelId,
+            boolean isInvisible,
+            boolean isCollisionFullCube,
+            boolean isCollisionEmpty,
+            boolean hasFullTopFace,
+            boolean isBottomSlabShaped,
+            boolean isFarmlandShaped,
+            boolean isCactusShaped,
+            boolean isOpaque,
+            boolean isLeaves,
+            boolean isClimbable,
+            OutlineType outline,
+            @Nullable RuntimeException outlineShapeException
+    ) {
+        /**
+         * @throws RuntimeException if the outline shape failed to be retrieved
+         */
+        public OutlineType getOutlineOrThrow() {
+            if (outlineShapeException != null) throw outlineShapeException;
+            return outline;
+        }
+    }
+
+    public enum OutlineType {
+        NOT_COMPUTED,
+        EMPTY,
+        /**
+         * Not empty, but no higher than 1 pixel
+         */
+        FLAT,
+        OTHER,
+        FAILED;
+
+        /**
+         * Empty shapes are also considered flat
+         */
+        public boolean isFlat() {
+            return this == EMPTY || this == FLAT;
+        }
+    }
+}
@@ -25,6 +25,8 @@ import net.minecraft.registry.Registries;
 import net.minecraft.registry.Registry;
 
 import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
 import java.util.function.BiConsumer;
 
 public class Generator {
@@ -34,6 +36,9 @@ public class Generator {
      */
     public static void generateMissing(PolyRegistry builder) {
         generateMissingPolys(builder, Registries.ITEM, ItemPolyGenerator::addItemToBuilder, builder::hasItemPoly);
+        // Analysing the block states is slow but independent of everything else, so it's done in parallel up front.
+        // The client states are then still allocated in a fixed order below
+        builder.getSharedValues(BlockStateAnalyzer.KEY).precompute(getMissing(Registries.BLOCK, builder::hasBlockPoly));
         generateMissingPolys(builder, Registries.BLOCK, BlockPolyGenerator::addBlockToBuilder, builder::hasBlockPoly);
         generateMissingPolys(builder, Registries.SCREEN_HANDLER, GuiGenerator::addGuiToBuilder, builder::hasGuiPoly);
         generateMissingPolys(builder, Registries.ENTITY_TYPE, EntityPolyGenerator::addEntityToBuilder, builder::hasEntityPoly);
@@ -48,6 +53,15 @@ public class Generator {
                 .forEach(entry -> generator.accept(entry.getValue(), builder));
     }
 
+    private static <T> List<T> getMissing(Registry<T> registry, BooleanFunction<T> contains) {
+        return registry.getEntrySet()
+                .stream()
+                .filter(entry -> !Util.isVanilla(entry.getKey().getValue()))
+                .filter(entry -> !contains.accept(entry.getValue()))
+                .map(Map.Entry::getValue)
+                .toList();
+    }
+
     /**
      * Registers global {@link io.github.theepicblock.polymc.api.item.ItemTransformer}s that are included with PolyMc by default for vanilla compatibility
      */
@@ -0,0 +1,66 @@
+package io.github.theepicblock.polymc.impl.misc;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import io.github.theepicblock.polymc.api.item.ItemLocation;
+import io.github.theepicblock.polymc.mixins.ItemStackAccessor;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.item.Items;
+import net.minecraft.nbt.NbtCompound;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Caches the results of {@link io.github.theepicblock.polymc.impl.PolyMapImpl#getClientItem}.
+ * The same stacks are sent over and over again (inventory syncs, entity equipment, etc.), so there's no need to transform them every time.
+ * Results don't depend on the stack's count, the count is applied when a result is retrieved.
+ * This is accessed from the netty threads, so it needs to be thread-safe.
+ */
+public class ClientItemCache {
+    /**
+     * Marks that the client item is the server item itself
+     */
+    private static final ItemStack UNCHANGED = new ItemStack(Items.AIR);
+
+    private final Cache<Key, ItemStack> cache;
+
+    public ClientItemCache(int maximumSize) {
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * @return the cached client item, or null if there was nothing cached
+     */
+    public @Nullable ItemStack get(ItemStack serverItem, @Nullable ItemLocation location, boolean creative) {
+        var template = cache.getIfPresent(new Key(serverItem.getItem(), serverItem.getNbt(), location, creative));
+        if (template == null) return null;
+        if (template == UNCHANGED) return serverItem;
+
+        var stack = new ItemStack(template.getItem(), serverItem.getCount());
+        var nbt = template.getNbt();
+        // Every hit gets its own copy, so whatever happens to the stack after this can't change the cached entry
+        ((ItemStackAccessor)(Object)stack).setNbtField(nbt == null ? null : nbt.copy());
+        return stack;
+    }
+
+    public void put(ItemStack serverItem, @Nullable ItemLocation location, boolean creative, ItemStack clientItem) {
+        var nbt = serverItem.getNbt();
+        // The key needs its own copy of the nbt, as the server item may be modified after this
+        var key = new Key(serverItem.getItem(), nbt == null ? null : nbt.copy(), location, creative);
+        cache.put(key, clientItem == serverItem ? UNCHANGED : clientItem.copy());
+    }
+
+    public CacheStats getStats() {
+        return cache.stats();
+    }
+
+    public long size() {
+        return cache.size();
+    }
+
+    private record Key(Item item, @Nullable NbtCompound nbt, @Nullable ItemLocation location, boolean creative) {}
+}
@@ -0,0 +1,95 @@
+package io.github.theepicblock.polymc.impl.misc;
+
+import io.github.theepicblock.polymc.PolyMc;
+import io.github.theepicblock.polymc.api.PolyMap;
+import io.github.theepicblock.polymc.api.block.BlockPoly;
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import org.jetbrains.annotations.VisibleForTesting;
+
+/**
+ * A precomputed lookup table from a serverside raw blockstate id to the clientside raw blockstate id.
+ * This turns {@link PolyMap#getClientStateRawId(BlockState, net.minecraft.server.network.ServerPlayerEntity)} into a single array access.
+ * States whose {@link BlockPoly} isn't {@link BlockPoly#isCacheable()} are marked as {@link #UNCACHED}.
+ */
+public class ClientStateIdTable {
+    public static final int UNCACHED = -1;
+    /**
+     * A table where everything is {@link #UNCACHED}
+     */
+    public static final ClientStateIdTable EMPTY = new ClientStateIdTable(new int[0]);
+
+    private final int[] table;
+    private final boolean isIdentity;
+
+    @VisibleForTesting
+    public ClientStateIdTable(int[] table) {
+        this.table = table;
+
+        boolean isIdentity = table.length != 0;
+        for (int i = 0; i < table.length; i++) {
+            if (table[i] != i) {
+                isIdentity = false;
+                break;
+            }
+        }
+        this.isIdentity = isIdentity;
+    }
+
+    /**
+     * Should only be called after the registries are frozen and after {@link BlockIdRemapper} has done its thing.
+     */
+    public static ClientStateIdTable build(PolyMap map) {
+        var table = new int[Block.STATE_IDS.size()];
+        var stoneId = Block.STATE_IDS.getRawId(Blocks.STONE.getDefaultState());
+
+        for (int serverId = 0; serverId < table.length; serverId++) {
+            var state = Block.STATE_IDS.get(serverId);
+            if (state == null) {
+                table[serverId] = UNCACHED;
+                continue;
+            }
+
+            var poly = map.getBlockPoly(state.getBlock());
+            if (poly == null) {
+                table[serverId] = serverId;
+                continue;
+            }
+            if (!poly.isCacheable()) {
+                table[serverId] = UNCACHED;
+                continue;
+            }
+
+            try {
+                var clientState = poly.getClientBlock(state);
+                table[serverId] = clientState == null ? stoneId : Block.STATE_IDS.getRawId(clientState);
+            } catch (Throwable t) {
+                // We'll try again when the state is actually sent
+                PolyMc.LOGGER.warn("Failed to precompute the client state for " + state + " (" + poly.getClass().getName() + "): " + t);
+                table[serverId] = UNCACHED;
+            }
+        }
+
+        return new ClientStateIdTable(table);
+    }
+
+    /**
+     * @return the clientside raw id, or {@link #UNCACHED} if it needs to be calculated by the {@link BlockPoly}
+     */
+    public int get(int serverId) {
+        if (serverId < 0 || serverId >= table.length) return UNCACHED;
+        return table[serverId];
+    }
+
+    /**
+     * @return true if every state is sent to the client using the same id as on the server
+     */
+    public boolean isIdentity() {
+        return isIdentity;
+    }
+
+    public int size() {
+        return table.length;
+    }
+}
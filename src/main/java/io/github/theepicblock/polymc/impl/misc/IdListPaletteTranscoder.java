@@ -0,0 +1,72 @@
+package io.github.theepicblock.polymc.impl.misc;
+
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Remaps the packed storage of a chunk section that uses the global palette ({@link net.minecraft.world.chunk.IdListPalette}).
+ * In that case the storage contains raw blockstate ids, so every element needs to be remapped instead of just the palette.
+ * @see io.github.theepicblock.polymc.mixins.block.implementations.IdListImplementation
+ */
+public class IdListPaletteTranscoder {
+    /**
+     * Scratch arrays, indexed by the amount of bits per element.
+     * The result of {@link #transcode} is written to the packet immediately, so it's fine to reuse these.
+     */
+    private static final ThreadLocal<long[][]> SCRATCH = ThreadLocal.withInitial(() -> new long[65][]);
+
+    /**
+     * @param data        the packed storage, as returned by {@link net.minecraft.util.collection.PaletteStorage#getData()}
+     * @param elementBits the amount of bits per element
+     * @param size        the amount of elements stored in {@code data}
+     * @param table       the table to remap the ids with
+     * @param fallback    used to remap ids which are {@link ClientStateIdTable#UNCACHED}
+     * @return {@code data} itself if nothing needed to be remapped.
+     * Otherwise, a thread-local array with the remapped data. It is only valid until the next call on the same thread.
+     */
+    public static long[] transcode(long[] data, int elementBits, int size, ClientStateIdTable table, IntUnaryOperator fallback) {
+        if (table.isIdentity()) return data;
+
+        var elementsPerLong = 64 / elementBits;
+        var mask = (1L << elementBits) - 1L;
+
+        long[] out = null;
+        int remaining = size;
+        for (int i = 0; i < data.length; i++) {
+            var oldLong = data[i];
+            var elementsInLong = Math.min(elementsPerLong, remaining);
+            remaining -= elementsInLong;
+
+            var newLong = 0L;
+            var shift = 0;
+            for (int j = 0; j < elementsInLong; j++) {
+                var serverId = (int)((oldLong >>> shift) & mask);
+                var clientId = table.get(serverId);
+                if (clientId == ClientStateIdTable.UNCACHED) {
+                    clientId = fallback.applyAsInt(serverId);
+                }
+                newLong |= ((long)clientId & mask) << shift;
+                shift += elementBits;
+            }
+
+            if (out == null) {
+                if (newLong == oldLong) continue;
+                // This is the first element that's actually different. Only now do we need to make a copy
+                out = getScratch(elementBits, data.length);
+                System.arraycopy(data, 0, out, 0, i);
+            }
+            out[i] = newLong;
+        }
+
+        return out == null ? data : out;
+    }
+
+    private static long[] getScratch(int elementBits, int length) {
+        var scratch = SCRATCH.get();
+        var array = scratch[elementBits];
+        if (array == null || array.length != length) {
+            array = new long[length];
+            scratch[elementBits] = array;
+        }
+        return array;
+    }
+}
@@ -0,0 +1,110 @@
+package io.github.theepicblock.polymc.impl.misc;
+
+import io.github.theepicblock.polymc.api.PolyMap;
+import io.github.theepicblock.polymc.api.misc.PolyMapProvider;
+import io.github.theepicblock.polymc.mixins.SCNetworkHandlerAccessor;
+import it.unimi.dsi.fastutil.objects.ObjectImmutableList;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerEntityEvents;
+import net.minecraft.network.ClientConnection;
+import net.minecraft.server.network.ServerPlayerEntity;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Groups all players on the server by the {@link PolyMap} they use.
+ * Players are added once they're loaded into a world and removed once they're unloaded, which covers disconnecting, respawning and changing dimensions.
+ * {@link io.github.theepicblock.polymc.mixins.PolyMapProviderImpl} moves them to another cohort if their map changes.
+ * <p>
+ * Most servers only use a single map for everyone, in which case the views don't need to check the map of each player they send to.
+ * Can be read from any thread, the lists are immutable and replaced whenever a cohort changes.
+ */
+@ApiStatus.Internal
+public class PolyMapCohorts {
+    private static final Map<PolyMap, List<ServerPlayerEntity>> COHORTS = new ConcurrentHashMap<>();
+    /**
+     * The map of the only cohort, or null if there are none or several
+     */
+    private static volatile @Nullable PolyMap soleMap;
+
+    public static void registerEvents() {
+        ServerEntityEvents.ENTITY_LOAD.register((entity, world) -> {
+            if (entity instanceof ServerPlayerEntity player) onPlayerLoad(player);
+        });
+        ServerEntityEvents.ENTITY_UNLOAD.register((entity, world) -> {
+            if (entity instanceof ServerPlayerEntity player) onPlayerUnload(player);
+        });
+    }
+
+    private static synchronized void onPlayerLoad(ServerPlayerEntity player) {
+        var map = PolyMapProvider.getPolyMap(player);
+        if (map != null) add(player, map);
+    }
+
+    private static synchronized void onPlayerUnload(ServerPlayerEntity player) {
+        // The map is looked up from the cohorts, in case the connection was already cleared
+        for (var entry : COHORTS.entrySet()) {
+            if (entry.getValue().contains(player)) {
+                remove(player, entry.getKey());
+                return;
+            }
+        }
+    }
+
+    /**
+     * Moves the player of this connection to the cohort of its new map. Connections without a loaded player aren't in any cohort yet
+     */
+    public static synchronized void onMapChanged(ClientConnection connection, @Nullable PolyMap oldMap, @Nullable PolyMap newMap) {
+        if (oldMap == newMap || oldMap == null) return;
+        for (var player : getPlayers(oldMap)) {
+            if (player.networkHandler != null && ((SCNetworkHandlerAccessor)player.networkHandler).getConnection() == connection) {
+                remove(player, oldMap);
+                if (newMap != null) add(player, newMap);
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return an immutable list of the players that use this map
+     */
+    public static List<ServerPlayerEntity> getPlayers(PolyMap map) {
+        return COHORTS.getOrDefault(map, Collections.emptyList());
+    }
+
+    /**
+     * @return true if every player uses this map, meaning there's no need to filter players by their map.
+     * False if no player uses this map yet
+     */
+    public static boolean isSoleCohort(PolyMap map) {
+        return soleMap == map;
+    }
+
+    private static void add(ServerPlayerEntity player, PolyMap map) {
+        var players = new ArrayList<>(getPlayers(map));
+        if (players.contains(player)) return;
+        players.add(player);
+        COHORTS.put(map, new ObjectImmutableList<>(players));
+        updateSoleMap();
+    }
+
+    private static void remove(ServerPlayerEntity player, PolyMap map) {
+        var players = new ArrayList<>(getPlayers(map));
+        if (!players.remove(player)) return;
+        if (players.isEmpty()) {
+            COHORTS.remove(map);
+        } else {
+            COHORTS.put(map, new ObjectImmutableList<>(players));
+        }
+        updateSoleMap();
+    }
+
+    private static void updateSoleMap() {
+        soleMap = COHORTS.size() == 1 ? COHORTS.keySet().iterator().next() : null;
+    }
+}
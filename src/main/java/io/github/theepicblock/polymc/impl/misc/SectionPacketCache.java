@@ -0,0 +1,75 @@
+package io.github.theepicblock.polymc.impl.misc;
+
+import io.github.theepicblock.polymc.api.PolyMap;
+import io.github.theepicblock.polymc.impl.Util;
+import io.github.theepicblock.polymc.impl.mixin.ChunkPacketStaticHack;
+import io.github.theepicblock.polymc.impl.mixin.PacketCacheDuck;
+import net.minecraft.network.PacketByteBuf;
+import net.minecraft.world.chunk.PalettedContainer;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Remapping and serializing a chunk section is done once per player that loads it.
+ * Players using the same {@link PolyMap} will receive the exact same bytes though, so we can reuse them.
+ * The cache is stored on the container itself and is cleared as soon as a block in it changes.
+ * @see io.github.theepicblock.polymc.mixins.block.implementations.ChunkSectionPacketCacheImplementation
+ * @see PolyMap#hasPlayerIndependentBlockStates()
+ */
+public class SectionPacketCache {
+    private static final LongAdder HITS = new LongAdder();
+    private static final LongAdder MISSES = new LongAdder();
+
+    public static void writePacket(PalettedContainer<?> container, PacketByteBuf buf) {
+        var map = getCacheableMap();
+        if (map == null || !(container instanceof PacketCacheDuck cache)) {
+            container.writePacket(buf);
+            return;
+        }
+
+        var cached = cache.polymc$getCachedPacket(map);
+        if (cached != null) {
+            HITS.increment();
+            buf.writeBytes(cached);
+            return;
+        }
+
+        MISSES.increment();
+        var modCount = cache.polymc$getModCount();
+        var start = buf.writerIndex();
+        container.writePacket(buf);
+
+        var packet = new byte[buf.writerIndex() - start];
+        buf.getBytes(start, packet);
+        cache.polymc$putCachedPacket(map, packet, modCount);
+    }
+
+    public static int getPacketSize(PalettedContainer<?> container) {
+        var map = getCacheableMap();
+        if (map != null && container instanceof PacketCacheDuck cache) {
+            var cached = cache.polymc$getCachedPacket(map);
+            if (cached != null) return cached.length;
+        }
+        return container.getPacketSize();
+    }
+
+    /**
+     * @return the map of the player that's currently receiving a chunk, or null if the result can't be cached
+     */
+    private static @Nullable PolyMap getCacheableMap() {
+        var player = ChunkPacketStaticHack.player.get();
+        if (player == null) return null;
+
+        var map = Util.tryGetPolyMap(player);
+        return map.hasPlayerIndependentBlockStates() ? map : null;
+    }
+
+    public static long getHits() {
+        return HITS.sum();
+    }
+
+    public static long getMisses() {
+        return MISSES.sum();
+    }
+}
@@ -0,0 +1,7 @@
+package io.github.theepicblock.polymc.impl.mixin;
+
+import io.github.theepicblock.polymc.impl.poly.wizard.ChunkWatcherIndex;
+
+public interface ChunkWatcherIndexDuck {
+    ChunkWatcherIndex polymc$getChunkWatcherIndex();
+}
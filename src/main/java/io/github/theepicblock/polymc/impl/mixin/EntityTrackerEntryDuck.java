@@ -2,7 +2,15 @@ package io.github.theepicblock.polymc.impl.mixin;
 
 import io.github.theepicblock.polymc.api.wizard.Wizard;
 import io.github.theepicblock.polymc.impl.misc.PolyMapMap;
+import net.minecraft.server.network.PlayerAssociatedNetworkHandler;
+
+import java.util.Set;
 
 public interface EntityTrackerEntryDuck {
     PolyMapMap<Wizard> polymc$getWizards();
+
+    /**
+     * @param listeners the live set of players tracking this entity, owned by the entity tracker this entry belongs to
+     */
+    void polymc$setListeners(Set<PlayerAssociatedNetworkHandler> listeners);
 }
@@ -0,0 +1,19 @@
+package io.github.theepicblock.polymc.impl.mixin;
+
+import io.github.theepicblock.polymc.api.PolyMap;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Stores serialized versions of a {@link net.minecraft.world.chunk.PalettedContainer}, one for each {@link PolyMap}.
+ * @see io.github.theepicblock.polymc.impl.misc.SectionPacketCache
+ */
+public interface PacketCacheDuck {
+    @Nullable byte[] polymc$getCachedPacket(PolyMap map);
+
+    /**
+     * Stores the serialized container, unless the container was modified since {@code modCount} was retrieved.
+     */
+    void polymc$putCachedPacket(PolyMap map, byte[] packet, int modCount);
+
+    int polymc$getModCount();
+}
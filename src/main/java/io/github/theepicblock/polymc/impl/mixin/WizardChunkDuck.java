@@ -0,0 +1,24 @@
+package io.github.theepicblock.polymc.impl.mixin;
+
+import io.github.theepicblock.polymc.api.PolyMap;
+import net.minecraft.server.network.ServerPlayerEntity;
+
+public interface WizardChunkDuck {
+    /**
+     * Creates the wizards of this chunk if that hasn't happened yet for the player's map, and spawns all of them for the player
+     * @see io.github.theepicblock.polymc.impl.poly.wizard.WizardMaterializationQueue
+     */
+    void polymc$spawnWizardsFor(ServerPlayerEntity player);
+
+    /**
+     * Removes all wizards of this chunk for the player, without changing which chunks the player is watching
+     * @see io.github.theepicblock.polymc.impl.poly.wizard.WizardLod
+     */
+    void polymc$despawnWizardsFor(ServerPlayerEntity player);
+
+    /**
+     * @return the largest {@link io.github.theepicblock.polymc.api.block.BlockPoly#getWizardRenderDistance(int)} of the wizard blocks in this chunk,
+     * or {@code defaultDistance} if there are none. This doesn't create any wizards, and the result is cached until a wizard block changes
+     */
+    int polymc$getRenderDistance(PolyMap map, int defaultDistance);
+}
@@ -0,0 +1,7 @@
+package io.github.theepicblock.polymc.impl.mixin;
+
+import io.github.theepicblock.polymc.impl.poly.wizard.WizardMaterializationQueue;
+
+public interface WizardMaterializationDuck {
+    WizardMaterializationQueue polymc$getMaterializationQueue();
+}
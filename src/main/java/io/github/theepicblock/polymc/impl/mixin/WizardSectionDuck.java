@@ -0,0 +1,20 @@
+package io.github.theepicblock.polymc.impl.mixin;
+
+import io.github.theepicblock.polymc.impl.poly.wizard.WizardSectionIndex;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Gives each {@link net.minecraft.world.chunk.ChunkSection} a {@link WizardSectionIndex}.
+ * @see io.github.theepicblock.polymc.mixins.wizards.block.ChunkSectionMixin
+ */
+public interface WizardSectionDuck {
+    /**
+     * Creates the index if it doesn't exist yet
+     */
+    WizardSectionIndex polymc$getWizardIndex();
+
+    /**
+     * @return the index, or null if nothing ever asked for it
+     */
+    @Nullable WizardSectionIndex polymc$getWizardIndexIfPresent();
+}
@@ -1,5 +1,6 @@
 package io.github.theepicblock.polymc.impl.poly.entity;
 
+import io.github.theepicblock.polymc.api.wizard.PacketConsumer;
 import io.github.theepicblock.polymc.api.wizard.Wizard;
 import io.github.theepicblock.polymc.api.wizard.WizardInfo;
 import io.github.theepicblock.polymc.impl.poly.wizard.ThreadedWizardUpdater;
@@ -17,4 +18,10 @@ public abstract class EntityWizard<T extends Entity> extends Wizard {
     public T getEntity() {
         return entity;
     }
+
+    /**
+     * Called when some of the entity's tracked data changed, at the same moment vanilla would send those changes.
+     * The new values can be read from the entity's {@link net.minecraft.entity.data.DataTracker}.
+     */
+    public void onTrackedDataChanged(PacketConsumer players) {}
 }
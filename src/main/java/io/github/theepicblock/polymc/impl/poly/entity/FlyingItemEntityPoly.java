@@ -35,6 +35,11 @@ public class FlyingItemEntityPoly<T extends Entity & FlyingItemEntity> implement
             snowball.sendVelocity(players, entity.getVelocity());
         }
 
+        @Override
+        public void onTrackedDataChanged(PacketConsumer players) {
+            snowball.sendItem(players, this.getEntity().getStack());
+        }
+
         @Override
         public void removePlayer(PacketConsumer player) {
             snowball.remove(player);
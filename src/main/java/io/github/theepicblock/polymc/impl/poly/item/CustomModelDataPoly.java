@@ -228,6 +228,14 @@ public class CustomModelDataPoly implements ItemPoly {
         return serverItem;
     }
 
+    /**
+     * The tooltips and attribute lore are created using the player (and the world they're in), so the result can't be shared between players
+     */
+    @Override
+    public boolean isCacheable() {
+        return false;
+    }
+
     private static NbtString toStr(Text text) {
         return NbtString.of(Text.Serialization.toJsonString(text));
     }
@@ -6,6 +6,7 @@ import io.github.theepicblock.polymc.api.item.ItemTransformer;
 import io.github.theepicblock.polymc.impl.Util;
 import net.minecraft.enchantment.EnchantmentHelper;
 import net.minecraft.item.EnchantedBookItem;
+import net.minecraft.item.Item;
 import net.minecraft.item.ItemStack;
 import net.minecraft.item.Items;
 import net.minecraft.nbt.NbtCompound;
@@ -31,6 +32,12 @@ public class Enchantment2LoreTransformer implements ItemTransformer {
         return portEnchantmentsToLore(input, polyMap.getItemPoly(original.getItem()) != null);
     }
 
+    @Override
+    public boolean mayTransform(Item item) {
+        // Enchantments are stored in the nbt
+        return false;
+    }
+
     public static ItemStack portEnchantmentsToLore(ItemStack input, boolean atBeginning) {
         if (input.getNbt() == null) return input;
 
@@ -3,6 +3,7 @@ package io.github.theepicblock.polymc.impl.poly.item;
 import io.github.theepicblock.polymc.api.PolyMap;
 import io.github.theepicblock.polymc.api.item.ItemLocation;
 import io.github.theepicblock.polymc.api.item.ItemTransformer;
+import net.minecraft.item.Item;
 import net.minecraft.item.ItemStack;
 import net.minecraft.item.Items;
 import net.minecraft.potion.PotionUtil;
@@ -13,8 +14,7 @@ import org.jetbrains.annotations.Nullable;
 public class PotionFixGlobalPoly implements ItemTransformer {
     @Override
     public ItemStack transform(ItemStack original, ItemStack input, PolyMap map, @Nullable ServerPlayerEntity player, @Nullable ItemLocation location) {
-        var i = input.getItem();
-        if (i == Items.POTION || i == Items.LINGERING_POTION || i == Items.SPLASH_POTION || i == Items.TIPPED_ARROW) {
+        if (isPotion(input.getItem())) {
             var ret = input.copy();
             var color = PotionUtil.getColor(ret);
             ret.getOrCreateNbt().putInt(PotionUtil.CUSTOM_POTION_COLOR_KEY, color);
@@ -39,4 +39,13 @@ public class PotionFixGlobalPoly implements ItemTransformer {
 
         return input;
     }
+
+    @Override
+    public boolean mayTransform(Item item) {
+        return isPotion(item);
+    }
+
+    private static boolean isPotion(Item i) {
+        return i == Items.POTION || i == Items.LINGERING_POTION || i == Items.SPLASH_POTION || i == Items.TIPPED_ARROW;
+    }
 }
@@ -17,6 +17,14 @@ public abstract class AbstractPacketConsumer implements PacketConsumer {
     public void sendBatched() {
         if (!deadEntities.isEmpty()) {
             this.sendPacket(new EntitiesDestroyS2CPacket(deadEntities)); // TODO once we start doing unsafe hacks, we can avoid copyi
+            deadEntities.clear();
         }
     }
+
+    /**
+     * Forgets about any batched packets that weren't sent yet, so this consumer can be reused
+     */
+    protected void discardBatched() {
+        deadEntities.clear();
+    }
 }
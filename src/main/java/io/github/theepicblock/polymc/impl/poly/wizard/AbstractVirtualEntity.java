@@ -3,15 +3,41 @@ package io.github.theepicblock.polymc.impl.poly.wizard;
 import io.github.theepicblock.polymc.api.wizard.PacketConsumer;
 import io.github.theepicblock.polymc.api.wizard.VirtualEntity;
 import io.github.theepicblock.polymc.mixins.wizards.EntityAccessor;
+import net.minecraft.entity.TrackedPosition;
+import net.minecraft.network.packet.s2c.play.EntityS2CPacket;
 import net.minecraft.network.packet.s2c.play.EntitySpawnS2CPacket;
 import net.minecraft.util.math.MathHelper;
 import net.minecraft.util.math.Vec3d;
 
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public abstract class AbstractVirtualEntity implements VirtualEntity {
+    /**
+     * The amount of moves after which an absolute position is sent again, to correct any rounding errors the client might've accumulated
+     */
+    private static final int ABSOLUTE_MOVE_INTERVAL = 60;
+
     protected final UUID uuid;
     protected final int id;
+    /**
+     * The last position that was sent to the players, relative moves are calculated from here
+     */
+    private final TrackedPosition trackedPosition = new TrackedPosition();
+    private byte lastYaw;
+    private byte lastPitch;
+    private boolean lastOnGround;
+    /**
+     * Set when a player was spawned in at a position that might not be {@link #trackedPosition}.
+     * Players are spawned in on the main thread, while the threaded updater moves the entity from its own threads
+     */
+    private final AtomicBoolean needsAbsoluteMove = new AtomicBoolean(true);
+    private int movesSinceAbsolute;
+    /**
+     * The amount of moves that should still be absolute because some players might've been skipped by a view,
+     * see {@link PacketConsumer#reachesAllWatchers()}. Only used by the thread that moves the entity
+     */
+    private int pendingResyncs;
 
     public AbstractVirtualEntity() {
         this.uuid = MathHelper.randomUuid();
@@ -38,6 +64,7 @@ public abstract class AbstractVirtualEntity implements VirtualEntity {
                 Vec3d.ZERO,
                 0
         ));
+        this.onSpawned();
     }
 
     public void spawn(PacketConsumer player, Vec3d pos, float pitch, float yaw, int entityData, Vec3d velocity) {
@@ -54,6 +81,7 @@ public abstract class AbstractVirtualEntity implements VirtualEntity {
                 velocity,
                 0
         ));
+        this.onSpawned();
     }
 
     public void move(PacketConsumer player, Vec3d pos, float yaw, float pitch, boolean onGround) {
@@ -64,7 +92,78 @@ public abstract class AbstractVirtualEntity implements VirtualEntity {
         move(player, pos.getX(), pos.getY(), pos.getZ(), yaw, pitch, onGround);
     }
 
+    /**
+     * Moves this entity for all players that can see it.
+     * Like vanilla, this sends the difference with the last position that was sent, and nothing at all if the entity didn't move.
+     * That means all moves should be sent to every player that has this entity spawned, use {@link #teleport} if that's not the case.
+     * <p>
+     * Views that might leave out players (see {@link PacketConsumer#reachesAllWatchers()}) only get absolute positions.
+     * That includes throttled views and the views of the threaded updater, which are built from a snapshot that doesn't have the players that were just spawned in.
+     * Those are repeated for {@link PacketCountManager#MAX_SEND_INTERVAL} moves after the last change or spawn, so the skipped players end up at the right place.
+     * This assumes the entity is moved once every tick.
+     */
     public void move(PacketConsumer player, double x, double y, double z, byte yaw, byte pitch, boolean onGround) {
+        var pos = new Vec3d(x, y, z);
+        var dx = this.trackedPosition.getDeltaX(pos);
+        var dy = this.trackedPosition.getDeltaY(pos);
+        var dz = this.trackedPosition.getDeltaZ(pos);
+        var fitsInShort = dx >= Short.MIN_VALUE && dx <= Short.MAX_VALUE && dy >= Short.MIN_VALUE && dy <= Short.MAX_VALUE && dz >= Short.MIN_VALUE && dz <= Short.MAX_VALUE;
+        var moved = dx != 0 || dy != 0 || dz != 0;
+        var rotated = yaw != this.lastYaw || pitch != this.lastPitch;
+        // Consumed in one go, so a player that's spawned in from another thread can't get lost in between
+        var needsAbsoluteMove = this.needsAbsoluteMove.getAndSet(false);
+
+        if (!player.reachesAllWatchers()) {
+            if (moved || rotated || onGround != this.lastOnGround || needsAbsoluteMove) {
+                this.pendingResyncs = PacketCountManager.MAX_SEND_INTERVAL;
+            }
+            if (this.pendingResyncs > 0) {
+                sendAbsolute(player, x, y, z, yaw, pitch, onGround);
+                this.pendingResyncs--;
+            }
+            return;
+        }
+
+        if (needsAbsoluteMove || this.pendingResyncs > 0 || !fitsInShort || this.movesSinceAbsolute >= ABSOLUTE_MOVE_INTERVAL) {
+            sendAbsolute(player, x, y, z, yaw, pitch, onGround);
+            // Everyone got this one, so everyone is in sync again
+            this.pendingResyncs = 0;
+            return;
+        }
+
+        if (moved && rotated) {
+            player.sendPacket(new EntityS2CPacket.RotateAndMoveRelative(this.id, (short)dx, (short)dy, (short)dz, yaw, pitch, onGround));
+        } else if (rotated) {
+            player.sendPacket(new EntityS2CPacket.Rotate(this.id, yaw, pitch, onGround));
+        } else if (moved || onGround != this.lastOnGround) {
+            player.sendPacket(new EntityS2CPacket.MoveRelative(this.id, (short)dx, (short)dy, (short)dz, onGround));
+        } else {
+            // Nothing changed, we don't need to send anything. This still counts towards the absolute move
+            this.movesSinceAbsolute++;
+            return;
+        }
+
+        this.trackedPosition.setPos(pos);
+        this.lastYaw = yaw;
+        this.lastPitch = pitch;
+        this.lastOnGround = onGround;
+        this.movesSinceAbsolute++;
+    }
+
+    public void teleport(PacketConsumer player, Vec3d pos, byte yaw, byte pitch, boolean onGround) {
+        teleport(player, pos.getX(), pos.getY(), pos.getZ(), yaw, pitch, onGround);
+    }
+
+    /**
+     * Sends the absolute position of this entity, unlike {@link #move(PacketConsumer, double, double, double, byte, byte, boolean)}.
+     * This is safe to send to only some of the players, the next move will be absolute as well so that everyone is in sync again.
+     */
+    public void teleport(PacketConsumer player, double x, double y, double z, byte yaw, byte pitch, boolean onGround) {
+        player.sendPacket(EntityUtil.createEntityPositionPacket(this.id, x, y, z, yaw, pitch, onGround));
+        this.needsAbsoluteMove.set(true);
+    }
+
+    private void sendAbsolute(PacketConsumer player, double x, double y, double z, byte yaw, byte pitch, boolean onGround) {
         player.sendPacket(EntityUtil.createEntityPositionPacket(
                 this.id,
                 x,
@@ -74,6 +173,18 @@ public abstract class AbstractVirtualEntity implements VirtualEntity {
                 pitch,
                 onGround
         ));
+        this.trackedPosition.setPos(new Vec3d(x, y, z));
+        this.lastYaw = yaw;
+        this.lastPitch = pitch;
+        this.lastOnGround = onGround;
+        this.movesSinceAbsolute = 0;
+    }
+
+    /**
+     * Should be called when this entity gets spawned for a player, as they won't know the last position that was sent
+     */
+    protected void onSpawned() {
+        this.needsAbsoluteMove.set(true);
     }
 
     public void sendVelocity(PacketConsumer player, Vec3d velocity) {
@@ -84,8 +195,8 @@ public abstract class AbstractVirtualEntity implements VirtualEntity {
         player.sendPacket(EntityUtil.createEntityVelocityUpdate(
                 this.id,
                 (int)(MathHelper.clamp(x, -3.9, 3.9) * 8000.0),
-                (int)(MathHelper.clamp(x, -3.9, 3.9) * 8000.0),
-                (int)(MathHelper.clamp(x, -3.9, 3.9) * 8000.0)
+                (int)(MathHelper.clamp(y, -3.9, 3.9) * 8000.0),
+                (int)(MathHelper.clamp(z, -3.9, 3.9) * 8000.0)
         ));
     }
 
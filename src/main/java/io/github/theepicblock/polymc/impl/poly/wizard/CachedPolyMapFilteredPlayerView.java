@@ -2,28 +2,70 @@ package io.github.theepicblock.polymc.impl.poly.wizard;
 
 import io.github.theepicblock.polymc.api.PolyMap;
 import io.github.theepicblock.polymc.api.misc.PolyMapProvider;
+import io.github.theepicblock.polymc.impl.misc.PolyMapCohorts;
 import net.minecraft.network.packet.Packet;
 import net.minecraft.server.network.ServerPlayerEntity;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.ArrayList;
 import java.util.List;
 
 public class CachedPolyMapFilteredPlayerView extends AbstractPacketConsumer {
     private final List<ServerPlayerEntity> players;
+    private final @Nullable PlayerPacketBuffer buffer;
+    private final boolean complete;
 
     public CachedPolyMapFilteredPlayerView(List<ServerPlayerEntity> allPlayers, PolyMap filter) {
-        players = new ArrayList<>();
-        allPlayers.forEach(player -> {
-            if (PolyMapProvider.getPolyMap(player) == filter) {
-                players.add(player);
-            }
-        });
+        this(filter(allPlayers, filter), null);
+    }
+
+    /**
+     * @param players players that are already known to use the right map
+     * @param buffer if not null, packets will be collected into this buffer instead of being sent immediately
+     */
+    public CachedPolyMapFilteredPlayerView(List<ServerPlayerEntity> players, @Nullable PlayerPacketBuffer buffer) {
+        this(players, buffer, true);
+    }
+
+    /**
+     * @param complete false if {@code players} might be missing some of the watchers, see {@link #reachesAllWatchers()}
+     */
+    public CachedPolyMapFilteredPlayerView(List<ServerPlayerEntity> players, @Nullable PlayerPacketBuffer buffer, boolean complete) {
+        this.players = players;
+        this.buffer = buffer;
+        this.complete = complete;
     }
 
     @Override
     public void sendPacket(Packet<?> packet) {
+        packet = PreEncodedPacket.shareIfPossible(packet, players.size());
+        if (buffer != null) {
+            for (var player : players) {
+                buffer.add(player.networkHandler, packet);
+            }
+            return;
+        }
         for (var player : players) {
             player.networkHandler.sendPacket(packet);
         }
     }
+
+    @Override
+    public boolean reachesAllWatchers() {
+        return complete;
+    }
+
+    private static List<ServerPlayerEntity> filter(List<ServerPlayerEntity> allPlayers, PolyMap filter) {
+        if (PolyMapCohorts.isSoleCohort(filter)) {
+            // Everyone uses this map, so there's nothing to filter
+            return allPlayers;
+        }
+        var players = new ArrayList<ServerPlayerEntity>();
+        allPlayers.forEach(player -> {
+            if (PolyMapProvider.getPolyMap(player) == filter) {
+                players.add(player);
+            }
+        });
+        return players;
+    }
 }
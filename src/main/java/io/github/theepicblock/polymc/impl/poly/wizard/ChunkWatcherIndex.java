@@ -0,0 +1,341 @@
+package io.github.theepicblock.polymc.impl.poly.wizard;
+
+import io.github.theepicblock.polymc.api.PolyMap;
+import io.github.theepicblock.polymc.api.misc.PolyMapProvider;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
+import it.unimi.dsi.fastutil.longs.LongSets;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import it.unimi.dsi.fastutil.objects.ObjectImmutableList;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectArrayMap;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.util.math.ChunkPos;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps track of which players have been sent which chunks of a world, so the players watching a chunk can be found without looping through every player.
+ * Players that are too far away to see the wizards of a chunk are culled, see {@link WizardLod}. They're still watching the chunk,
+ * but aren't returned by {@link #getWatchers(ChunkPos)}, so nothing sends them wizard packets for that chunk.
+ * Players whose wizards are still queued in the {@link WizardMaterializationQueue} are pending, and are left out in the same way until the queue spawns the wizards for them.
+ * This is kept in sync by the watch hooks of {@link io.github.theepicblock.polymc.mixins.wizards.block.WorldChunkMixin}
+ * and by {@link PacketCountManager} when a player is removed from the world.
+ * <p>
+ * The visible watchers are also grouped per {@link PolyMap}, so the wizards of a map can be sent to exactly the players using it
+ * without checking the map of every watcher, see {@link #getWatchers(long, PolyMap)}.
+ * The index tells its {@link Listener} when a chunk gains its first or loses its last watcher of a map.
+ * The {@link WizardTickerRegistry} uses this to only tick wizards that someone can see.
+ * Should only be accessed from the server thread.
+ * @see io.github.theepicblock.polymc.impl.mixin.ChunkWatcherIndexDuck
+ */
+@ApiStatus.Internal
+public class ChunkWatcherIndex {
+    /**
+     * The lists in here are immutable and replaced whenever they change, so they can be handed out as they are
+     * and anyone holding on to one can tell if it's still up-to-date by comparing it with {@link #getWatchers(long)}
+     */
+    private final Long2ObjectMap<List<ServerPlayerEntity>> watchers = new Long2ObjectOpenHashMap<>();
+    private final Long2ObjectMap<List<ServerPlayerEntity>> culledWatchers = new Long2ObjectOpenHashMap<>();
+    private final Long2ObjectMap<List<ServerPlayerEntity>> pendingWatchers = new Long2ObjectOpenHashMap<>();
+    private final Map<ServerPlayerEntity, LongSet> watchedChunks = new IdentityHashMap<>();
+    /**
+     * The visible watchers of each chunk grouped by the map they use. These lists are immutable in the same way
+     */
+    private final Map<PolyMap, Long2ObjectMap<List<ServerPlayerEntity>>> watchersPerMap = new Reference2ObjectArrayMap<>();
+    /**
+     * The map each player had when it started watching, so it's removed from the right group if its map changes
+     */
+    private final Map<ServerPlayerEntity, PolyMap> playerMaps = new IdentityHashMap<>();
+    private final @Nullable Listener listener;
+
+    public ChunkWatcherIndex() {
+        this(null);
+    }
+
+    public ChunkWatcherIndex(@Nullable Listener listener) {
+        this.listener = listener;
+    }
+
+    public void addWatcher(ChunkPos pos, ServerPlayerEntity player) {
+        if (getOrCreateChunks(player).add(pos.toLong())) {
+            addVisible(pos.toLong(), player);
+        }
+    }
+
+    /**
+     * Adds a watcher that is too far away to see the wizards in the chunk
+     */
+    public void addCulledWatcher(ChunkPos pos, ServerPlayerEntity player) {
+        if (getOrCreateChunks(player).add(pos.toLong())) {
+            addToChunk(culledWatchers, pos.toLong(), player);
+        }
+    }
+
+    /**
+     * Adds a watcher whose wizards haven't been spawned yet, see {@link #promote(long, ServerPlayerEntity)}
+     */
+    public void addPendingWatcher(ChunkPos pos, ServerPlayerEntity player) {
+        if (getOrCreateChunks(player).add(pos.toLong())) {
+            addToChunk(pendingWatchers, pos.toLong(), player);
+        }
+    }
+
+    /**
+     * Makes a pending watcher visible, used once its wizards have been spawned
+     * @return true if the player was pending for this chunk
+     */
+    public boolean promote(long pos, ServerPlayerEntity player) {
+        if (!removeFromChunk(pendingWatchers, pos, player)) return false;
+        addVisible(pos, player);
+        return true;
+    }
+
+    public boolean isPending(long pos, ServerPlayerEntity player) {
+        var players = pendingWatchers.get(pos);
+        return players != null && players.contains(player);
+    }
+
+    /**
+     * @return true if the player was watching the chunk and wasn't culled yet
+     */
+    public boolean cull(long pos, ServerPlayerEntity player) {
+        if (!removeVisible(pos, player)) return false;
+        addToChunk(culledWatchers, pos, player);
+        return true;
+    }
+
+    /**
+     * @return true if the player was culled from this chunk
+     */
+    public boolean uncull(long pos, ServerPlayerEntity player) {
+        if (!removeFromChunk(culledWatchers, pos, player)) return false;
+        addVisible(pos, player);
+        return true;
+    }
+
+    /**
+     * Like {@link #uncull(long, ServerPlayerEntity)}, but the player becomes pending instead of visible
+     * @return true if the player was culled from this chunk
+     */
+    public boolean uncullToPending(long pos, ServerPlayerEntity player) {
+        if (!removeFromChunk(culledWatchers, pos, player)) return false;
+        addToChunk(pendingWatchers, pos, player);
+        return true;
+    }
+
+    public boolean isCulled(long pos, ServerPlayerEntity player) {
+        var players = culledWatchers.get(pos);
+        return players != null && players.contains(player);
+    }
+
+    /**
+     * @return true if any player is culled from any chunk
+     */
+    public boolean hasCulledWatchers() {
+        return !culledWatchers.isEmpty();
+    }
+
+    public void removeWatcher(ChunkPos pos, ServerPlayerEntity player) {
+        var chunks = watchedChunks.get(player);
+        if (chunks == null || !chunks.remove(pos.toLong())) return;
+
+        removeVisible(pos.toLong(), player);
+        removeFromChunk(culledWatchers, pos.toLong(), player);
+        removeFromChunk(pendingWatchers, pos.toLong(), player);
+        if (chunks.isEmpty()) forgetPlayer(player);
+    }
+
+    /**
+     * Removes the player from all chunks. Used when the player leaves the world
+     */
+    public void removePlayer(ServerPlayerEntity player) {
+        var chunks = watchedChunks.get(player);
+        if (chunks == null) return;
+
+        var iterator = chunks.iterator();
+        while (iterator.hasNext()) {
+            var pos = iterator.nextLong();
+            removeVisible(pos, player);
+            removeFromChunk(culledWatchers, pos, player);
+            removeFromChunk(pendingWatchers, pos, player);
+        }
+        forgetPlayer(player);
+    }
+
+    /**
+     * Removes all watchers from the chunk. Used when the chunk is unloaded
+     */
+    public void removeChunk(ChunkPos pos) {
+        var visible = watchers.get(pos.toLong());
+        if (visible != null) {
+            // The visible list is replaced instead of modified, so it doesn't need to be copied
+            for (var player : visible) {
+                removeWatcher(pos, player);
+            }
+        }
+        var culled = culledWatchers.get(pos.toLong());
+        if (culled != null) {
+            // Copied, as the list is modified while removing
+            for (var player : List.copyOf(culled)) {
+                removeWatcher(pos, player);
+            }
+        }
+        var pending = pendingWatchers.get(pos.toLong());
+        if (pending != null) {
+            for (var player : List.copyOf(pending)) {
+                removeWatcher(pos, player);
+            }
+        }
+    }
+
+    /**
+     * @return the players that have been sent this chunk, except the ones that are culled or pending.
+     * This list is immutable, a new one is returned once the watchers change
+     */
+    public List<ServerPlayerEntity> getWatchers(ChunkPos pos) {
+        return getWatchers(pos.toLong());
+    }
+
+    /**
+     * @param pos a chunk position packed as a long, see {@link ChunkPos#toLong(int, int)}
+     * @return the players that have been sent this chunk, except the ones that are culled or pending.
+     * This list is immutable, a new one is returned once the watchers change
+     */
+    public List<ServerPlayerEntity> getWatchers(long pos) {
+        var players = watchers.get(pos);
+        return players == null ? Collections.emptyList() : players;
+    }
+
+    /**
+     * @param pos a chunk position packed as a long, see {@link ChunkPos#toLong(int, int)}
+     * @return the players using this map that have been sent this chunk, except the ones that are culled or pending.
+     * This list is immutable, a new one is returned once the watchers change
+     */
+    public List<ServerPlayerEntity> getWatchers(long pos, PolyMap map) {
+        var perMap = watchersPerMap.get(map);
+        if (perMap == null) return Collections.emptyList();
+        var players = perMap.get(pos);
+        return players == null ? Collections.emptyList() : players;
+    }
+
+    /**
+     * @return the chunks that were sent to this player, packed as longs. Includes the ones the player is culled from or pending for. This set should not be modified
+     */
+    public LongSet getWatchedChunks(ServerPlayerEntity player) {
+        var chunks = watchedChunks.get(player);
+        return chunks == null ? LongSets.EMPTY_SET : chunks;
+    }
+
+    /**
+     * @return true if at least one player using this map is watching the chunk, without being culled or pending
+     */
+    public boolean isWatched(PolyMap map, long pos) {
+        var perMap = watchersPerMap.get(map);
+        return perMap != null && perMap.containsKey(pos);
+    }
+
+    private LongSet getOrCreateChunks(ServerPlayerEntity player) {
+        return watchedChunks.computeIfAbsent(player, p -> {
+            playerMaps.put(p, PolyMapProvider.getPolyMap(p));
+            return new LongOpenHashSet();
+        });
+    }
+
+    private void forgetPlayer(ServerPlayerEntity player) {
+        watchedChunks.remove(player);
+        playerMaps.remove(player);
+    }
+
+    private void addVisible(long pos, ServerPlayerEntity player) {
+        watchers.put(pos, with(watchers.get(pos), player));
+
+        var map = playerMaps.get(player);
+        if (map == null) return;
+        var perMap = watchersPerMap.computeIfAbsent(map, m -> new Long2ObjectOpenHashMap<>());
+        var players = perMap.put(pos, with(perMap.get(pos), player));
+        if (players == null && listener != null) listener.onWatched(map, pos);
+    }
+
+    private boolean removeVisible(long pos, ServerPlayerEntity player) {
+        var players = watchers.get(pos);
+        if (players == null || !players.contains(player)) return false;
+        replaceOrRemove(watchers, pos, without(players, player));
+
+        var map = playerMaps.get(player);
+        if (map == null) return true;
+        var perMap = watchersPerMap.get(map);
+        if (perMap == null) return true;
+        var mapPlayers = perMap.get(pos);
+        if (mapPlayers == null) return true;
+        if (replaceOrRemove(perMap, pos, without(mapPlayers, player))) {
+            if (perMap.isEmpty()) watchersPerMap.remove(map);
+            if (listener != null) listener.onUnwatched(map, pos);
+        }
+        return true;
+    }
+
+    /**
+     * @return a new immutable list with the player added to the end
+     */
+    private static List<ServerPlayerEntity> with(@Nullable List<ServerPlayerEntity> players, ServerPlayerEntity player) {
+        if (players == null) return ObjectImmutableList.of(player);
+        var array = players.toArray(new ServerPlayerEntity[players.size() + 1]);
+        array[players.size()] = player;
+        return new ObjectImmutableList<>(array);
+    }
+
+    /**
+     * @return a new immutable list without the player, or null if it would be empty
+     */
+    private static @Nullable List<ServerPlayerEntity> without(List<ServerPlayerEntity> players, ServerPlayerEntity player) {
+        var array = new ServerPlayerEntity[players.size()];
+        var i = 0;
+        for (var p : players) {
+            if (p != player) array[i++] = p;
+        }
+        if (i == 0) return null;
+        return new ObjectImmutableList<>(array, 0, i);
+    }
+
+    /**
+     * @return true if the chunk was removed, because there were no players left
+     */
+    private static boolean replaceOrRemove(Long2ObjectMap<List<ServerPlayerEntity>> map, long pos, @Nullable List<ServerPlayerEntity> players) {
+        if (players == null) {
+            map.remove(pos);
+            return true;
+        }
+        map.put(pos, players);
+        return false;
+    }
+
+    private static void addToChunk(Long2ObjectMap<List<ServerPlayerEntity>> map, long pos, ServerPlayerEntity player) {
+        map.computeIfAbsent(pos, p -> new ObjectArrayList<>()).add(player);
+    }
+
+    private static boolean removeFromChunk(Long2ObjectMap<List<ServerPlayerEntity>> map, long pos, ServerPlayerEntity player) {
+        var players = map.get(pos);
+        if (players == null || !players.remove(player)) return false;
+        if (players.isEmpty()) map.remove(pos);
+        return true;
+    }
+
+    public interface Listener {
+        /**
+         * Called when the first player using this map starts watching the chunk
+         */
+        void onWatched(PolyMap map, long pos);
+
+        /**
+         * Called when the last player using this map stops watching the chunk
+         */
+        void onUnwatched(PolyMap map, long pos);
+    }
+}
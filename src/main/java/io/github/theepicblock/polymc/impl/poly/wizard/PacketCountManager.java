@@ -4,9 +4,10 @@ import io.github.theepicblock.polymc.api.PolyMap;
 import io.github.theepicblock.polymc.api.misc.PolyMapProvider;
 import io.github.theepicblock.polymc.api.wizard.PacketConsumer;
 import io.github.theepicblock.polymc.impl.ConfigManager;
+import io.github.theepicblock.polymc.impl.mixin.ChunkWatcherIndexDuck;
+import io.github.theepicblock.polymc.impl.mixin.WizardMaterializationDuck;
 import io.github.theepicblock.polymc.mixins.TACSAccessor;
 import net.fabricmc.fabric.api.event.lifecycle.v1.ServerEntityEvents;
-import net.fabricmc.fabric.api.networking.v1.PlayerLookup;
 import net.minecraft.network.packet.Packet;
 import net.minecraft.network.packet.s2c.play.EntitiesDestroyS2CPacket;
 import net.minecraft.server.network.PlayerAssociatedNetworkHandler;
@@ -15,6 +16,7 @@ import net.minecraft.server.world.ServerWorld;
 import net.minecraft.util.math.ChunkPos;
 import net.minecraft.util.math.Vec3d;
 import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -32,6 +34,10 @@ public class PacketCountManager {
     public final static int MAX_PACKETS = ConfigManager.getConfig().maxPacketsPerSecond/20;
     public final static int MIN_PACKETS = MAX_PACKETS - 5; // The minimum amount of packets before we start relaxing our restrictions
     public final static int MAX_RESTRICTION = 11;
+    /**
+     * The most amount of ticks {@link PlayerInfo#shouldSend} will skip a player for
+     */
+    public final static int MAX_SEND_INTERVAL = 20;
     private final Map<ServerPlayerEntity, PlayerInfo> playerTrackers = new HashMap<>();
     /**
      * This provides an index into {@link PlayerInfo#packetCountHistory} into which we are currently reading.
@@ -47,7 +53,12 @@ public class PacketCountManager {
             if (entity instanceof ServerPlayerEntity player) INSTANCE.onPlayerLoad(player);
         });
         ServerEntityEvents.ENTITY_UNLOAD.register((entity, world) -> {
-            if (entity instanceof ServerPlayerEntity player) INSTANCE.onPlayerUnload(player);
+            if (entity instanceof ServerPlayerEntity player) {
+                INSTANCE.onPlayerUnload(player);
+                // Covers disconnecting and changing dimensions, the player won't receive unload packets for every chunk in those cases
+                ((ChunkWatcherIndexDuck)world).polymc$getChunkWatcherIndex().removePlayer(player);
+                ((WizardMaterializationDuck)world).polymc$getMaterializationQueue().cancelPlayer(player);
+            }
         });
     }
 
@@ -90,8 +101,15 @@ public class PacketCountManager {
     }
 
     public PacketConsumer getView(Set<PlayerAssociatedNetworkHandler> listeners, PolyMap map, Vec3d pos, int tick, int seed) {
+        return getView(listeners, map, pos, tick, seed, null);
+    }
+
+    /**
+     * @param buffer if not null, the packets will be collected into this buffer instead of being sent immediately
+     */
+    public PacketConsumer getView(Set<PlayerAssociatedNetworkHandler> listeners, PolyMap map, Vec3d pos, int tick, int seed, @Nullable PlayerPacketBuffer buffer) {
         var reusableConsumer = this.reusableConsumer.get();
-        reusableConsumer.reset(this.cursor);
+        reusableConsumer.reset(this.cursor, buffer);
 
         int pSeed = 0;
         for (var listener : listeners) {
@@ -102,6 +120,8 @@ public class PacketCountManager {
                 if (info == null) continue;
                 if (info.shouldSend(player.getPos(), pos, true, tick, seed+(pSeed++), this.watchRadius)) {
                     reusableConsumer.addListener(listener, info);
+                } else {
+                    reusableConsumer.markSkipped();
                 }
             }
         }
@@ -110,21 +130,26 @@ public class PacketCountManager {
     }
 
     public PacketConsumer getView(ServerWorld world, ChunkPos pos, PolyMap map, int tick, int seed) {
+        return getView(world, pos, map, tick, seed, null);
+    }
+
+    /**
+     * @param buffer if not null, the packets will be collected into this buffer instead of being sent immediately
+     */
+    public PacketConsumer getView(ServerWorld world, ChunkPos pos, PolyMap map, int tick, int seed, @Nullable PlayerPacketBuffer buffer) {
         var reusableConsumer = this.reusableConsumer.get();
-        reusableConsumer.reset(this.cursor);
+        reusableConsumer.reset(this.cursor, buffer);
         var chunkPos = new Vec3d(pos.getCenterX(), 0, pos.getCenterZ());
 
         int pSeed = 0;
-        for (var player : PlayerLookup.world(world)) {
-
-            if (player.getChunkFilter().isWithinDistance(pos) &&
-                    PolyMapProvider.getPolyMap(player) == map) {
-                var info = playerTrackers.get(player);
-                // Just in case the player was unloaded but not yet removed from the world
-                if (info == null) continue;
-                if (info.shouldSend(player.getPos(), chunkPos, false, tick, seed+(pSeed++), this.watchRadius)) {
-                    reusableConsumer.addListener(player.networkHandler, info);
-                }
+        for (var player : ((ChunkWatcherIndexDuck)world).polymc$getChunkWatcherIndex().getWatchers(pos.toLong(), map)) {
+            var info = playerTrackers.get(player);
+            // Just in case the player was unloaded but not yet removed from the world
+            if (info == null) continue;
+            if (info.shouldSend(player.getPos(), chunkPos, false, tick, seed+(pSeed++), this.watchRadius)) {
+                reusableConsumer.addListener(player.networkHandler, info);
+            } else {
+                reusableConsumer.markSkipped();
             }
         }
 
@@ -175,7 +200,7 @@ public class PacketCountManager {
          * This is the main method that controls the restricting of packets
          */
         protected boolean shouldSend(Vec3d playerPos, Vec3d wizardPos, boolean isChunk, int tickCount, int seed, int watchRadius) {
-            if (restrictionLevel == 0) {
+            if (restrictionLevel == 0 && ConfigManager.getConfig().wizardReducedUpdateDistance <= 0) {
                 return true;
             }
 
@@ -199,7 +224,8 @@ public class PacketCountManager {
                 distanceLevel = 3;
             }
 
-            return (tickCount+seed) % switch (restrictionLevel) {
+            var interval = switch (restrictionLevel) {
+                case 0 -> 1;
                 case 1 -> switch (distanceLevel) {
                     case 0,1,2 -> 1;
                     default -> 2;
@@ -256,9 +282,12 @@ public class PacketCountManager {
                     case 0 -> 10;
                     case 1 -> 13;
                     case 2 -> 18;
-                    default -> 20;
+                    default -> MAX_SEND_INTERVAL;
                 };
-            } == 0;
+            };
+            // Wizards far away are always updated less often, see WizardLod
+            interval = Math.max(interval, WizardLod.getUpdateInterval(distance));
+            return interval == 1 || (tickCount+seed) % interval == 0;
         }
     }
 
@@ -266,9 +295,13 @@ public class PacketCountManager {
         private final ArrayList<PlayerAssociatedNetworkHandler> listeners = new ArrayList<>();
         private final ArrayList<PlayerInfo> trackers = new ArrayList<>();
         private int cursor = 0;
+        private @Nullable PlayerPacketBuffer buffer;
+        private boolean skippedAny;
 
-        public void reset(int cursor) {
+        public void reset(int cursor, @Nullable PlayerPacketBuffer buffer) {
             this.cursor = cursor;
+            this.buffer = buffer;
+            this.skippedAny = false;
             listeners.clear();
             trackers.clear();
         }
@@ -278,10 +311,27 @@ public class PacketCountManager {
             this.trackers.add(tracker);
         }
 
+        /**
+         * Marks that a player that should see these packets was left out to save bandwidth
+         */
+        public void markSkipped() {
+            this.skippedAny = true;
+        }
+
+        @Override
+        public boolean reachesAllWatchers() {
+            return !skippedAny;
+        }
+
         @Override
         public void sendPacket(Packet<?> packet) {
+            packet = PreEncodedPacket.shareIfPossible(packet, listeners.size());
             for (int i = 0; i < listeners.size(); i++) {
-                listeners.get(i).sendPacket(packet);
+                if (buffer != null) {
+                    buffer.add(listeners.get(i), packet);
+                } else {
+                    listeners.get(i).sendPacket(packet);
+                }
                 trackers.get(i).packetCountHistory[cursor] += 1;
             }
         }
@@ -0,0 +1,80 @@
+package io.github.theepicblock.polymc.impl.poly.wizard;
+
+import net.minecraft.network.handler.PacketBundleHandler;
+import net.minecraft.network.listener.ClientPlayPacketListener;
+import net.minecraft.network.packet.Packet;
+import net.minecraft.network.packet.s2c.play.BundleS2CPacket;
+import net.minecraft.server.network.PlayerAssociatedNetworkHandler;
+import org.jetbrains.annotations.ApiStatus;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Collects the packets that wizards send to each player, so they can be sent as a single {@link BundleS2CPacket} per player.
+ * Wizards with a lot of entities can easily send hundreds of small packets in a tick, bundling them means the client handles them all at once.
+ * Packets can be added from multiple threads at once, but {@link #flush()} should only be called once all of them are done.
+ */
+@ApiStatus.Internal
+public class PlayerPacketBuffer {
+    private final Map<PlayerAssociatedNetworkHandler, Queue<Packet<ClientPlayPacketListener>>> buffers = new ConcurrentHashMap<>();
+
+    @SuppressWarnings("unchecked")
+    public void add(PlayerAssociatedNetworkHandler handler, Packet<?> packet) {
+        var buffer = buffers.computeIfAbsent(handler, h -> new ConcurrentLinkedQueue<>());
+        if (packet instanceof BundleS2CPacket bundle) {
+            // Bundles can't be nested
+            for (var subPacket : bundle.getPackets()) {
+                buffer.add((Packet<ClientPlayPacketListener>)subPacket);
+            }
+        } else {
+            buffer.add((Packet<ClientPlayPacketListener>)packet);
+        }
+    }
+
+    /**
+     * Sends everything that was collected and empties the buffer, bundling the packets if there's more than one for a player
+     */
+    public void flush() {
+        if (buffers.isEmpty()) return;
+        // The queues are kept around for the next flush, only players that didn't receive anything since the last one are dropped
+        buffers.entrySet().removeIf(entry -> {
+            var packets = entry.getValue();
+            if (packets.isEmpty()) return true;
+            send(entry.getKey(), packets);
+            return false;
+        });
+    }
+
+    private static void send(PlayerAssociatedNetworkHandler handler, Queue<Packet<ClientPlayPacketListener>> packets) {
+        if (packets.size() == 1) {
+            handler.sendPacket(packets.poll());
+            return;
+        }
+
+        var bundle = new ArrayList<Packet<ClientPlayPacketListener>>(Math.min(packets.size(), PacketBundleHandler.MAX_PACKETS));
+        Packet<ClientPlayPacketListener> packet;
+        while ((packet = packets.poll()) != null) {
+            bundle.add(packet);
+            // The client refuses bundles that are too big
+            if (bundle.size() == PacketBundleHandler.MAX_PACKETS) {
+                sendBundle(handler, bundle);
+                bundle = new ArrayList<>();
+            }
+        }
+        sendBundle(handler, bundle);
+    }
+
+    private static void sendBundle(PlayerAssociatedNetworkHandler handler, List<Packet<ClientPlayPacketListener>> packets) {
+        if (packets.isEmpty()) return;
+        if (packets.size() == 1) {
+            handler.sendPacket(packets.get(0));
+        } else {
+            handler.sendPacket(new BundleS2CPacket(packets));
+        }
+    }
+}
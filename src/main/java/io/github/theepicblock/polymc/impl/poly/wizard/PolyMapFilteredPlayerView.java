@@ -2,6 +2,7 @@ package io.github.theepicblock.polymc.impl.poly.wizard;
 
 import io.github.theepicblock.polymc.api.PolyMap;
 import io.github.theepicblock.polymc.api.misc.PolyMapProvider;
+import io.github.theepicblock.polymc.impl.misc.PolyMapCohorts;
 import net.minecraft.network.packet.Packet;
 import net.minecraft.server.network.ServerPlayerEntity;
 import net.minecraft.server.world.ServerWorld;
@@ -21,6 +22,16 @@ public class PolyMapFilteredPlayerView extends AbstractPacketConsumer {
 
     @Override
     public void sendPacket(Packet<?> packet) {
+        // This also counts players on other maps, at worst the packet gets encoded once more than needed
+        packet = PreEncodedPacket.shareIfPossible(packet, allPlayers.size());
+        if (PolyMapCohorts.isSoleCohort(filter)) {
+            // Everyone uses this map
+            for (ServerPlayerEntity player : allPlayers) {
+                player.networkHandler.sendPacket(packet);
+            }
+            return;
+        }
+
         for (ServerPlayerEntity player : allPlayers) {
             if (PolyMapProvider.getPolyMap(player) == filter) {
                 player.networkHandler.sendPacket(packet);
@@ -0,0 +1,94 @@
+package io.github.theepicblock.polymc.impl.poly.wizard;
+
+import io.github.theepicblock.polymc.api.PolyMap;
+import io.github.theepicblock.polymc.api.misc.PolyMapProvider;
+import io.github.theepicblock.polymc.impl.misc.PolyMapCohorts;
+import net.minecraft.network.packet.Packet;
+import net.minecraft.server.network.PlayerAssociatedNetworkHandler;
+import net.minecraft.server.network.ServerPlayerEntity;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A view that can be pointed at a different set of players every time it's used, see {@link WizardViewArena}.
+ * The players are read straight from the backing collection and filtered on the fly, nothing gets copied.
+ * That means the backing collection shouldn't change while this view is in use.
+ */
+@ApiStatus.Internal
+public class PooledPlayerView extends AbstractPacketConsumer {
+    private @Nullable ServerPlayerEntity player;
+    private @Nullable List<ServerPlayerEntity> players;
+    private @Nullable Set<PlayerAssociatedNetworkHandler> listeners;
+    /**
+     * Only players using this map will receive packets, or everyone if it's null
+     */
+    private @Nullable PolyMap filter;
+    private @Nullable PlayerPacketBuffer buffer;
+
+    PooledPlayerView() {}
+
+    void resetSingle(ServerPlayerEntity player, @Nullable PlayerPacketBuffer buffer) {
+        clear();
+        this.player = player;
+        this.buffer = buffer;
+    }
+
+    void resetPlayers(List<ServerPlayerEntity> players, @Nullable PolyMap filter, @Nullable PlayerPacketBuffer buffer) {
+        clear();
+        this.players = players;
+        this.filter = filter == null || PolyMapCohorts.isSoleCohort(filter) ? null : filter;
+        this.buffer = buffer;
+    }
+
+    void resetListeners(Set<PlayerAssociatedNetworkHandler> listeners, PolyMap filter, @Nullable PlayerPacketBuffer buffer) {
+        clear();
+        this.listeners = listeners;
+        this.filter = PolyMapCohorts.isSoleCohort(filter) ? null : filter;
+        this.buffer = buffer;
+    }
+
+    /**
+     * Drops all references to players, so they can't leak through the pool
+     */
+    void clear() {
+        this.discardBatched();
+        this.player = null;
+        this.players = null;
+        this.listeners = null;
+        this.filter = null;
+        this.buffer = null;
+    }
+
+    @Override
+    public void sendPacket(Packet<?> packet) {
+        if (player != null) {
+            send(player.networkHandler, packet);
+        } else if (players != null) {
+            packet = PreEncodedPacket.shareIfPossible(packet, players.size());
+            for (int i = 0; i < players.size(); i++) {
+                var p = players.get(i);
+                if (filter == null || PolyMapProvider.getPolyMap(p) == filter) {
+                    send(p.networkHandler, packet);
+                }
+            }
+        } else if (listeners != null) {
+            packet = PreEncodedPacket.shareIfPossible(packet, listeners.size());
+            for (var listener : listeners) {
+                if (filter == null || PolyMapProvider.getPolyMap(listener.getPlayer()) == filter) {
+                    send(listener, packet);
+                }
+            }
+        }
+    }
+
+    private void send(PlayerAssociatedNetworkHandler handler, Packet<?> packet) {
+        if (buffer != null) {
+            buffer.add(handler, packet);
+        } else {
+            handler.sendPacket(packet);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package io.github.theepicblock.polymc.impl.poly.wizard;
+
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import net.minecraft.network.PacketByteBuf;
+import net.minecraft.network.listener.ClientPlayPacketListener;
+import net.minecraft.network.packet.Packet;
+import net.minecraft.network.packet.s2c.play.*;
+import org.jetbrains.annotations.ApiStatus;
+
+import java.util.Set;
+
+/**
+ * Wraps a packet that has already been serialized, so it doesn't need to be serialized again for every player it's sent to.
+ * The encoder uses the id of the wrapped packet, see {@link io.github.theepicblock.polymc.mixins.wizards.PreEncodedPacketEncoderMixin}.
+ * Compression and encryption still happen per connection, only the serialization is shared.
+ * <p>
+ * Only packets that don't contain anything PolyMap or player dependent (such as items, block states or registry ids) can be shared.
+ * Those are the movement related packets that wizards send every tick, other packets are serialized for each player like usual.
+ */
+@ApiStatus.Internal
+public final class PreEncodedPacket implements Packet<ClientPlayPacketListener> {
+    private static final Set<Class<?>> SHAREABLE = Set.of(
+            EntityPositionS2CPacket.class,
+            EntityS2CPacket.MoveRelative.class,
+            EntityS2CPacket.Rotate.class,
+            EntityS2CPacket.RotateAndMoveRelative.class,
+            EntityVelocityUpdateS2CPacket.class,
+            EntitySetHeadYawS2CPacket.class,
+            EntitiesDestroyS2CPacket.class
+    );
+
+    private final Packet<?> packet;
+    private final byte[] content;
+
+    private PreEncodedPacket(Packet<?> packet) {
+        this.packet = packet;
+        var buf = new PacketByteBuf(Unpooled.buffer());
+        packet.write(buf);
+        this.content = ByteBufUtil.getBytes(buf);
+    }
+
+    /**
+     * @param recipients the amount of players this packet will be sent to
+     * @return a pre-encoded version of the packet if it's worth it and safe to do so, otherwise the packet itself
+     */
+    public static Packet<?> shareIfPossible(Packet<?> packet, int recipients) {
+        if (recipients < 2 || !SHAREABLE.contains(packet.getClass())) return packet;
+        return new PreEncodedPacket(packet);
+    }
+
+    /**
+     * @return the packet that was serialized. The encoder needs this to get the packet id
+     */
+    public Packet<?> getPacket() {
+        return packet;
+    }
+
+    @Override
+    public void write(PacketByteBuf buf) {
+        buf.writeBytes(content);
+    }
+
+    @Override
+    public void apply(ClientPlayPacketListener listener) {
+        throw new UnsupportedOperationException("Pre-encoded packets can only be sent");
+    }
+
+    @Override
+    public boolean isWritingErrorSkippable() {
+        return packet.isWritingErrorSkippable();
+    }
+}
@@ -9,11 +9,17 @@ import io.github.theepicblock.polymc.mixins.entity.EntityTrackerAccessor;
 import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
 import net.minecraft.server.world.ServerWorld;
 import net.minecraft.util.math.ChunkPos;
+import org.jetbrains.annotations.ApiStatus;
 
 import java.util.List;
 import java.util.Map;
 
 public class RegularWizardUpdater {
+    /**
+     * Worlds are ticked one after another on the main thread, and the buffer is flushed at the end of each of them
+     */
+    private static final PlayerPacketBuffer BUFFER = new PlayerPacketBuffer();
+
     public static void registerEvents() {
         ServerTickEvents.END_WORLD_TICK.register(RegularWizardUpdater::tick);
         ServerTickEvents.END_SERVER_TICK.register((server) -> {
@@ -21,10 +27,15 @@ public class RegularWizardUpdater {
         });
     }
 
-    private static void tick(ServerWorld world) {
+    /**
+     * Updates and ticks all wizards in the world, this is called at the end of every world tick
+     */
+    @ApiStatus.Internal
+    public static void tick(ServerWorld world) {
         var tick = world.getServer().getTicks();
         var updateInfo = new ThreadedWizardUpdater.UpdateInfoImpl(tick, 1); // Called at the end of the tick, therefore delta is 1
         var packetCountManager = PacketCountManager.INSTANCE;
+        var buffer = BUFFER;
         packetCountManager.updateWatchRadius(((TACSAccessor)world.getChunkManager().threadedAnvilChunkStorage).getWatchDistance());
 
         var entityTrackers = ((TACSAccessor)world.getChunkManager().threadedAnvilChunkStorage).getEntityTrackers();
@@ -37,19 +48,19 @@ public class RegularWizardUpdater {
                 var polyMap = entry.getKey();
                 var wizard = entry.getValue();
                 if (wizard == null) continue;
-                var playerView = packetCountManager.getView(listeners, polyMap, ((EntityTrackerAccessor)tracker).getEntity().getSyncedPos(), tick, seed++);
+                var playerView = packetCountManager.getView(listeners, polyMap, ((EntityTrackerAccessor)tracker).getEntity().getSyncedPos(), tick, seed++, buffer);
                 wizard.update(playerView, updateInfo);
                 playerView.sendBatched();
             }
         }
 
-        for (Map.Entry<PolyMap,Map<ChunkPos,List<Wizard>>> e : ((WizardTickerDuck)world).polymc$getBlockTickers().entrySet()) {
+        for (Map.Entry<PolyMap,Map<ChunkPos,List<Wizard>>> e : ((WizardTickerDuck)world).polymc$getActiveBlockTickers().entrySet()) {
             var polyMap = e.getKey();
             var wizardsPerPos = e.getValue();
             for (Map.Entry<ChunkPos,List<Wizard>> entry : wizardsPerPos.entrySet()) {
                 var pos = entry.getKey();
                 var wizards = entry.getValue();
-                var playerView = packetCountManager.getView(world, pos, polyMap, tick, seed++);
+                var playerView = packetCountManager.getView(world, pos, polyMap, tick, seed++, buffer);
                 wizards.forEach(wizard -> {
                     wizard.update(playerView, updateInfo);
                     wizard.onTick(playerView);
@@ -57,5 +68,7 @@ public class RegularWizardUpdater {
                 playerView.sendBatched();
             }
         }
+
+        buffer.flush();
     }
 }
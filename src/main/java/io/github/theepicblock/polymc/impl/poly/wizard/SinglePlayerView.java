@@ -2,16 +2,30 @@ package io.github.theepicblock.polymc.impl.poly.wizard;
 
 import net.minecraft.network.packet.Packet;
 import net.minecraft.server.network.ServerPlayerEntity;
+import org.jetbrains.annotations.Nullable;
 
 public class SinglePlayerView extends AbstractPacketConsumer {
     private final ServerPlayerEntity player;
+    private final @Nullable PlayerPacketBuffer buffer;
 
     public SinglePlayerView(ServerPlayerEntity player) {
+        this(player, null);
+    }
+
+    /**
+     * @param buffer if not null, packets will be collected into this buffer instead of being sent immediately
+     */
+    public SinglePlayerView(ServerPlayerEntity player, @Nullable PlayerPacketBuffer buffer) {
         this.player = player;
+        this.buffer = buffer;
     }
 
     @Override
     public void sendPacket(Packet<?> packet) {
-        player.networkHandler.sendPacket(packet);
+        if (buffer != null) {
+            buffer.add(player.networkHandler, packet);
+        } else {
+            player.networkHandler.sendPacket(packet);
+        }
     }
 }
@@ -3,34 +3,56 @@ package io.github.theepicblock.polymc.impl.poly.wizard;
 import io.github.theepicblock.polymc.PolyMc;
 import io.github.theepicblock.polymc.api.wizard.PacketConsumer;
 import io.github.theepicblock.polymc.api.wizard.UpdateInfo;
+import io.github.theepicblock.polymc.impl.ConfigManager;
+import io.github.theepicblock.polymc.impl.mixin.ChunkWatcherIndexDuck;
 import io.github.theepicblock.polymc.impl.mixin.WizardTickerDuck;
-import it.unimi.dsi.fastutil.objects.ObjectArraySet;
 import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
 import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
-import net.fabricmc.fabric.api.event.lifecycle.v1.ServerWorldEvents;
 import net.minecraft.server.MinecraftServer;
-import net.minecraft.server.world.ServerWorld;
-import net.minecraft.util.math.ChunkPos;
 import net.minecraft.util.thread.ReentrantThreadExecutor;
 import org.jetbrains.annotations.ApiStatus;
 
 import java.lang.annotation.*;
-import java.util.Set;
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.locks.LockSupport;
 
 public class ThreadedWizardUpdater extends ReentrantThreadExecutor<Runnable> {
     public static ThreadedWizardUpdater MAIN = null;
-    private static final int MILLIS_PER_TICK = 1000/60;
+    /**
+     * Used for the ticks on the main thread, it's flushed at the end of every world tick
+     */
+    private static final PlayerPacketBuffer MAIN_THREAD_BUFFER = new PlayerPacketBuffer();
 
     private final MinecraftServer server;
-    public final Set<ServerWorld> worlds = new ObjectArraySet<>();
     private final Thread myThread = new Thread(this::runTickLoop);
+    private final ForkJoinPool workers;
+    private final long nanosPerFrame;
+    private final WizardUpdaterStats stats;
     private boolean shouldStop = false;
     private volatile int tickTime = 0;
     private volatile long tickStart = System.nanoTime(); // The time in milliseconds of when this tick started, used to calculate tick delta
+    /**
+     * Published by the main thread at the end of each tick. This is the only view into the world that the updater thread has
+     */
+    private volatile WizardWatcherSnapshot snapshot = WizardWatcherSnapshot.EMPTY;
+    private final WizardWatcherSnapshot.Capturer capturer = new WizardWatcherSnapshot.Capturer();
 
     public ThreadedWizardUpdater(MinecraftServer server) {
         super("PolyMc wizard updater");
         this.server = server;
+
+        var config = ConfigManager.getConfig();
+        var rate = Math.max(1, config.wizardUpdateRate);
+        var threads = config.wizardUpdateThreads > 0 ? config.wizardUpdateThreads : Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() - 1));
+        this.nanosPerFrame = 1_000_000_000L / rate;
+        this.stats = new WizardUpdaterStats(rate, threads);
+        this.workers = new ForkJoinPool(threads, pool -> {
+            var thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("PolyMc wizard updater worker #" + thread.getPoolIndex());
+            return thread;
+        }, null, false);
     }
 
     public static void registerEvents() {
@@ -45,38 +67,36 @@ public class ThreadedWizardUpdater extends ReentrantThreadExecutor<Runnable> {
             MAIN.stop();
         });
 
-        ServerWorldEvents.LOAD.register((server, world) -> {
-            if (MAIN == null) return;
-            MAIN.execute(() -> MAIN.worlds.add(world));
-        });
-
-        ServerWorldEvents.UNLOAD.register((server, world) -> {
-            if (MAIN == null) return;
-            MAIN.execute(() -> MAIN.worlds.remove(world));
-        });
-
         ServerTickEvents.START_SERVER_TICK.register(server -> {
             if (MAIN == null) return;
             MAIN.tickTime = server.getTicks();
             MAIN.tickStart = System.nanoTime();
         });
 
+        ServerTickEvents.END_SERVER_TICK.register(server -> {
+            if (MAIN == null) return;
+            MAIN.publishSnapshot();
+        });
+
         // This calls the regular on tick method (not the update method). This is done on the main thread like normal
-        ServerTickEvents.END_WORLD_TICK.register(world -> ((WizardTickerDuck)world).polymc$getBlockTickers()
-                .forEach((polyMap, wizardsPerPos) -> {
-                    wizardsPerPos.forEach((pos, wizards) -> {
-                        var playerView = new CachedPolyMapFilteredPlayerView(PolyMapFilteredPlayerView.getAll(world, pos), polyMap);
-                        wizards.forEach(wizard -> {
-                            wizard.onTick(playerView);
-                        });
-                        playerView.sendBatched();
+        ServerTickEvents.END_WORLD_TICK.register(world -> {
+            var index = ((ChunkWatcherIndexDuck)world).polymc$getChunkWatcherIndex();
+            ((WizardTickerDuck)world).polymc$getActiveBlockTickers().forEach((polyMap, wizardsPerPos) -> {
+                wizardsPerPos.forEach((pos, wizards) -> {
+                    var playerView = WizardViewArena.get().players(index.getWatchers(pos.toLong(), polyMap), null, MAIN_THREAD_BUFFER);
+                    wizards.forEach(wizard -> {
+                        wizard.onTick(playerView);
                     });
-                }));
+                    playerView.sendBatched();
+                });
+            });
+            MAIN_THREAD_BUFFER.flush();
+        });
     }
 
     public void start() {
         // Ran on the main thread
-        server.getWorlds().forEach(this.worlds::add);
+        this.publishSnapshot();
         myThread.setDaemon(true);
         myThread.setName("PolyMc wizard updater");
         myThread.start();
@@ -90,39 +110,92 @@ public class ThreadedWizardUpdater extends ReentrantThreadExecutor<Runnable> {
         });
     }
 
-    @SuppressWarnings("BusyWait")
+    /**
+     * Captures which players are watching which wizards, the updater thread will use this until the next snapshot is published.
+     * Must be called on the main thread
+     */
+    public void publishSnapshot() {
+        this.snapshot = capturer.capture(server);
+    }
+
+    public WizardWatcherSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    public boolean isRunning() {
+        return myThread.isAlive();
+    }
+
+    public WizardUpdaterStats getStats() {
+        return stats;
+    }
+
     public void runTickLoop() {
         // This is the entrypoint into the thread
         PolyMc.LOGGER.info("Started wizard updating thread");
+        var frameStart = System.nanoTime();
         while (true) {
             this.runTasks();
             if (shouldStop) {
+                workers.shutdown();
                 return;
             }
 
-            this.worlds.forEach(world -> {
+            var deadline = frameStart + nanosPerFrame;
+            runFrame(this.snapshot, deadline);
+            var now = System.nanoTime();
+            stats.onFrame(now);
 
-                var entityUpdateInfo = new UpdateInfoImpl(this.tickTime, getTickDelta());
-                ((WizardTickerDuck)world).polymc$getEntityTickers().forEach((polyMap, wizards) -> {
-                    wizards.forEach(wizard -> {
-                        var playerView = new CachedPolyMapFilteredPlayerView(PolyMapFilteredPlayerView.getAll(world, new ChunkPos((int)wizard.getPosition().x >> 4, (int)wizard.getPosition().z >> 4)), polyMap); // FIXME this is *not* threadsafe
-                        wizard.update(playerView, entityUpdateInfo);
-                        playerView.sendBatched();
-                    });
-                });
-                ((WizardTickerDuck)world).polymc$getBlockTickers().forEach((polyMap, wizardsPerPos) -> {
-                    wizardsPerPos.forEach((pos, wizards) -> {
-                        var playerView = new CachedPolyMapFilteredPlayerView(PolyMapFilteredPlayerView.getAll(world, pos), polyMap); // FIXME this is *not* threadsafe
-                        var updateInfo = new UpdateInfoImpl(this.tickTime, getTickDelta());
-                        wizards.forEach(wizard -> wizard.update(playerView, updateInfo));
-                        playerView.sendBatched();
-                    });
-                });
-            });
+            frameStart = deadline;
+            if (now > frameStart) {
+                // We're behind, skip the frames we've missed instead of trying to catch up
+                var missed = (now - frameStart) / nanosPerFrame + 1;
+                stats.onFramesSkipped(missed);
+                frameStart += missed * nanosPerFrame;
+            }
+            waitUntil(frameStart);
+        }
+    }
+
+    /**
+     * Updates every region of the snapshot, spread over the worker threads
+     * @param deadline the time at which the next frame should start. Wizards updated after this are considered late
+     */
+    private void runFrame(WizardWatcherSnapshot snapshot, long deadline) {
+        var updateInfo = new UpdateInfoImpl(this.tickTime, getTickDelta());
+        var buffer = new PlayerPacketBuffer();
+        var regions = snapshot.regions();
+        if (regions.size() == 1) {
+            updateRegion(regions.get(0), updateInfo, buffer, deadline);
+        } else {
+            var tasks = new ArrayList<ForkJoinTask<?>>(regions.size());
+            for (var region : regions) {
+                tasks.add(workers.submit(() -> updateRegion(region, updateInfo, buffer, deadline)));
+            }
+            tasks.forEach(ForkJoinTask::join);
+        }
+        buffer.flush();
+    }
+
+    private void updateRegion(WizardWatcherSnapshot.Region region, UpdateInfo updateInfo, PlayerPacketBuffer buffer, long deadline) {
+        for (var entry : region.entries()) {
+            var isLate = System.nanoTime() > deadline;
+            // The snapshot is up to a tick old, players that were spawned in since then aren't part of it
+            var playerView = new CachedPolyMapFilteredPlayerView(entry.players(), buffer, false);
+            for (var wizard : entry.wizards()) {
+                if (isLate) stats.onLateUpdate(wizard);
+                wizard.update(playerView, updateInfo);
+            }
+            playerView.sendBatched();
+        }
+    }
 
-            try {
-                Thread.sleep(MILLIS_PER_TICK); // TODO more intelligent scheduling
-            } catch (InterruptedException ignored) {}
+    private void waitUntil(long time) {
+        long remaining;
+        while (!shouldStop && (remaining = time - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(this, remaining);
+            // Scheduling a task wakes this thread up, there's no need to make it wait until the next frame
+            this.runTasks();
         }
     }
 
@@ -0,0 +1,136 @@
+package io.github.theepicblock.polymc.impl.poly.wizard;
+
+import io.github.theepicblock.polymc.api.misc.PolyMapProvider;
+import io.github.theepicblock.polymc.impl.ConfigManager;
+import io.github.theepicblock.polymc.impl.mixin.ChunkWatcherIndexDuck;
+import io.github.theepicblock.polymc.impl.mixin.WizardChunkDuck;
+import io.github.theepicblock.polymc.impl.mixin.WizardMaterializationDuck;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.chunk.WorldChunk;
+import org.jetbrains.annotations.ApiStatus;
+
+/**
+ * Level of detail for block wizards, based on how far away the player is.
+ * <ul>
+ *     <li>Within {@code wizardReducedUpdateDistance} wizards are updated normally</li>
+ *     <li>Further than that, but within {@code wizardRenderDistance}, they're updated every {@link #REDUCED_UPDATE_INTERVAL} ticks.
+ *     See {@link PacketCountManager.PlayerInfo#shouldSend}</li>
+ *     <li>Further than {@code wizardRenderDistance} the player is culled from the chunk in the {@link ChunkWatcherIndex},
+ *     the wizards are despawned for them and they won't receive any updates</li>
+ * </ul>
+ * Culling happens per chunk, every {@link #CHECK_INTERVAL} ticks. A player needs to go {@code wizardRenderDistanceHysteresis} blocks further
+ * than the render distance before the wizards are despawned again, so they don't flicker when walking along the edge.
+ * Wizard blocks can change their render distance with {@link io.github.theepicblock.polymc.api.block.BlockPoly#getWizardRenderDistance(int)}.
+ */
+@ApiStatus.Internal
+public class WizardLod {
+    private static final int CHECK_INTERVAL = 10;
+    public static final int REDUCED_UPDATE_INTERVAL = 4;
+
+    public static void registerEvents() {
+        ServerTickEvents.END_WORLD_TICK.register(world -> {
+            if (world.getTime() % CHECK_INTERVAL == 0) update(world);
+        });
+    }
+
+    public static boolean isEnabled() {
+        return ConfigManager.getConfig().wizardRenderDistance > 0;
+    }
+
+    /**
+     * @return true if the player is too far away to see the wizards of a chunk that was just sent to them
+     */
+    public static boolean isOutOfRange(WorldChunk chunk, ServerPlayerEntity player) {
+        if (!isEnabled()) return false;
+        var pos = chunk.getPos();
+        var renderDistance = ((WizardChunkDuck)chunk).polymc$getRenderDistance(PolyMapProvider.getPolyMap(player), ConfigManager.getConfig().wizardRenderDistance);
+        return getDistanceSquared(pos.toLong(), player) > (double)renderDistance * renderDistance;
+    }
+
+    /**
+     * @return the amount of ticks between updates for a wizard at this distance from the player, see {@code wizardReducedUpdateDistance}
+     */
+    public static int getUpdateInterval(double distanceSquared) {
+        var reducedDistance = ConfigManager.getConfig().wizardReducedUpdateDistance;
+        if (reducedDistance > 0 && distanceSquared > (double)reducedDistance * reducedDistance) {
+            return REDUCED_UPDATE_INTERVAL;
+        }
+        return 1;
+    }
+
+    /**
+     * Culls and unculls the chunks of every player in the world, depending on their distance
+     */
+    public static void update(ServerWorld world) {
+        var index = ((ChunkWatcherIndexDuck)world).polymc$getChunkWatcherIndex();
+        var enabled = isEnabled();
+        // If it was just turned off, everything that's still culled should be spawned again
+        if (!enabled && !index.hasCulledWatchers()) return;
+
+        var config = ConfigManager.getConfig();
+        var queue = ((WizardMaterializationDuck)world).polymc$getMaterializationQueue();
+        var chunks = new LongArrayList();
+        for (var player : world.getPlayers()) {
+            var map = PolyMapProvider.getPolyMap(player);
+            // Spawning wizards can't change the watched chunks, but a copy is made to be sure
+            chunks.clear();
+            chunks.addAll(index.getWatchedChunks(player));
+
+            for (int i = 0; i < chunks.size(); i++) {
+                var pos = chunks.getLong(i);
+                // The player will be checked again once the queue has spawned the wizards
+                if (index.isPending(pos, player)) continue;
+                var culled = index.isCulled(pos, player);
+                var chunk = world.getChunkManager().getWorldChunk(ChunkPos.getPackedX(pos), ChunkPos.getPackedZ(pos));
+                if (chunk == null) continue;
+
+                if (!enabled) {
+                    if (culled) show(index, queue, chunk, pos, player);
+                    continue;
+                }
+
+                var renderDistance = (double)((WizardChunkDuck)chunk).polymc$getRenderDistance(map, config.wizardRenderDistance);
+                var distanceSquared = getDistanceSquared(pos, player);
+                if (culled) {
+                    if (distanceSquared < renderDistance * renderDistance) {
+                        show(index, queue, chunk, pos, player);
+                    }
+                } else {
+                    var hideDistance = renderDistance + config.wizardRenderDistanceHysteresis;
+                    if (distanceSquared > hideDistance * hideDistance) {
+                        hide(index, chunk, pos, player);
+                    }
+                }
+            }
+        }
+    }
+
+    private static void show(ChunkWatcherIndex index, WizardMaterializationQueue queue, WorldChunk chunk, long pos, ServerPlayerEntity player) {
+        if (WizardMaterializationQueue.isEnabled()) {
+            if (!index.uncullToPending(pos, player)) return;
+            queue.enqueue(chunk.getPos(), player);
+        } else {
+            if (!index.uncull(pos, player)) return;
+            ((WizardChunkDuck)chunk).polymc$spawnWizardsFor(player);
+        }
+    }
+
+    private static void hide(ChunkWatcherIndex index, WorldChunk chunk, long pos, ServerPlayerEntity player) {
+        // Pending players are skipped, so the player always got the wizards of this chunk
+        if (!index.cull(pos, player)) return;
+        ((WizardChunkDuck)chunk).polymc$despawnWizardsFor(player);
+    }
+
+    /**
+     * @return the horizontal distance between the player and the center of the chunk, squared
+     */
+    private static double getDistanceSquared(long pos, ServerPlayerEntity player) {
+        var dx = (ChunkPos.getPackedX(pos) << 4) + 8 - player.getX();
+        var dz = (ChunkPos.getPackedZ(pos) << 4) + 8 - player.getZ();
+        return dx * dx + dz * dz;
+    }
+}
@@ -0,0 +1,251 @@
+package io.github.theepicblock.polymc.impl.poly.wizard;
+
+import io.github.theepicblock.polymc.PolyMc;
+import io.github.theepicblock.polymc.impl.ConfigManager;
+import io.github.theepicblock.polymc.impl.mixin.ChunkWatcherIndexDuck;
+import io.github.theepicblock.polymc.impl.mixin.WizardChunkDuck;
+import io.github.theepicblock.polymc.impl.mixin.WizardMaterializationDuck;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.ChunkPos;
+import org.jetbrains.annotations.ApiStatus;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Creating the wizards of a chunk means scanning all of its sections, and spawning them can mean a lot of packets.
+ * Doing that the moment a chunk is sent causes lag spikes when flying over builds full of modded blocks,
+ * so instead the chunks are queued here and handled at the end of the world tick, for at most {@code wizardMaterializationBudget} nanoseconds.
+ * Chunks closest to the player they're for are handled first, picking those isn't counted towards the budget.
+ * Until then, the player is pending in the {@link ChunkWatcherIndex}, so they don't get any packets for wizards they haven't been sent yet.
+ * <p>
+ * Should only be accessed from the server thread.
+ * @see io.github.theepicblock.polymc.mixins.wizards.block.WorldChunkMixin
+ */
+@ApiStatus.Internal
+public class WizardMaterializationQueue {
+    /**
+     * How many of the nearest chunks are picked out of the queue at once
+     */
+    private static final int BATCH_SIZE = 64;
+
+    private final ServerWorld world;
+    /**
+     * The players waiting for the wizards of each chunk
+     */
+    private final Long2ObjectMap<List<ServerPlayerEntity>> pending = new Long2ObjectOpenHashMap<>();
+    private int depth;
+
+    // The chunks that are handled next, reused between ticks. See selectNearest
+    private final long[] batchChunks = new long[BATCH_SIZE];
+    private final ServerPlayerEntity[] batchPlayers = new ServerPlayerEntity[BATCH_SIZE];
+    private final double[] batchDistances = new double[BATCH_SIZE];
+    private int batchSize;
+
+    private long lastTickNanos;
+    private long totalNanos;
+    private long processed;
+
+    public WizardMaterializationQueue(ServerWorld world) {
+        this.world = world;
+    }
+
+    public static void registerEvents() {
+        ServerTickEvents.END_WORLD_TICK.register(world -> {
+            ((WizardMaterializationDuck)world).polymc$getMaterializationQueue().drain(ConfigManager.getConfig().wizardMaterializationBudget);
+        });
+    }
+
+    /**
+     * @return false if wizards should be spawned straight away instead
+     */
+    public static boolean isEnabled() {
+        return ConfigManager.getConfig().wizardMaterializationBudget > 0;
+    }
+
+    public void enqueue(ChunkPos pos, ServerPlayerEntity player) {
+        var players = pending.computeIfAbsent(pos.toLong(), k -> new ArrayList<>(1));
+        if (!players.contains(player)) {
+            players.add(player);
+            depth++;
+        }
+    }
+
+    /**
+     * @return true if the player was still waiting for this chunk's wizards, meaning it never received any of them
+     */
+    public boolean cancel(ChunkPos pos, ServerPlayerEntity player) {
+        var players = pending.get(pos.toLong());
+        if (players == null || !players.remove(player)) return false;
+        depth--;
+        if (players.isEmpty()) pending.remove(pos.toLong());
+        return true;
+    }
+
+    /**
+     * Used when a chunk is unloaded
+     */
+    public void cancelChunk(ChunkPos pos) {
+        var players = pending.remove(pos.toLong());
+        if (players != null) depth -= players.size();
+    }
+
+    /**
+     * Used when a player leaves the world
+     */
+    public void cancelPlayer(ServerPlayerEntity player) {
+        var iterator = pending.values().iterator();
+        while (iterator.hasNext()) {
+            var players = iterator.next();
+            if (players.remove(player)) {
+                depth--;
+                if (players.isEmpty()) iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Handles queued chunks until the budget runs out. At least one chunk is always handled, so the queue can't get stuck.
+     * Picking the nearest chunks doesn't count towards the budget, only creating and spawning the wizards does
+     */
+    public void drain(long budgetNanos) {
+        if (pending.isEmpty()) {
+            lastTickNanos = 0;
+            return;
+        }
+
+        var spent = 0L;
+        var handled = 0;
+        while (!pending.isEmpty()) {
+            selectNearest();
+            var workStart = System.nanoTime();
+            var i = 0;
+            for (; i < batchSize; i++) {
+                if (handled > 0 && spent + System.nanoTime() - workStart >= budgetNanos) break;
+                var pos = new ChunkPos(batchChunks[i]);
+                var player = batchPlayers[i];
+                if (!cancel(pos, player)) continue;
+                run(pos, player);
+                handled++;
+            }
+            spent += System.nanoTime() - workStart;
+            if (i < batchSize) break;
+        }
+        // Don't keep players alive through the batch
+        Arrays.fill(batchPlayers, 0, batchSize, null);
+        batchSize = 0;
+
+        processed += handled;
+        lastTickNanos = spent;
+        totalNanos += spent;
+    }
+
+    /**
+     * Fills the batch with the {@link #BATCH_SIZE} chunk and player combinations that are closest together, closest first.
+     * This uses a bounded max-heap on the distance, so only the batch itself needs to be sorted
+     */
+    private void selectNearest() {
+        batchSize = 0;
+        for (var entry : pending.long2ObjectEntrySet()) {
+            var chunkPos = entry.getLongKey();
+            var centerX = (ChunkPos.getPackedX(chunkPos) << 4) + 8;
+            var centerZ = (ChunkPos.getPackedZ(chunkPos) << 4) + 8;
+            for (var player : entry.getValue()) {
+                var dx = centerX - player.getX();
+                var dz = centerZ - player.getZ();
+                var distance = dx * dx + dz * dz;
+                if (batchSize < BATCH_SIZE) {
+                    set(batchSize, chunkPos, player, distance);
+                    siftUp(batchSize++);
+                } else if (distance < batchDistances[0]) {
+                    set(0, chunkPos, player, distance);
+                    siftDown(0, batchSize);
+                }
+            }
+        }
+        // Heapsort, the largest distance goes to the back each time
+        for (int end = batchSize - 1; end > 0; end--) {
+            swap(0, end);
+            siftDown(0, end);
+        }
+    }
+
+    private void siftUp(int i) {
+        while (i > 0) {
+            var parent = (i - 1) >> 1;
+            if (batchDistances[parent] >= batchDistances[i]) return;
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int i, int size) {
+        while (true) {
+            var largest = i;
+            var left = 2 * i + 1;
+            var right = left + 1;
+            if (left < size && batchDistances[left] > batchDistances[largest]) largest = left;
+            if (right < size && batchDistances[right] > batchDistances[largest]) largest = right;
+            if (largest == i) return;
+            swap(i, largest);
+            i = largest;
+        }
+    }
+
+    private void set(int i, long chunkPos, ServerPlayerEntity player, double distance) {
+        batchChunks[i] = chunkPos;
+        batchPlayers[i] = player;
+        batchDistances[i] = distance;
+    }
+
+    private void swap(int a, int b) {
+        var chunk = batchChunks[a];
+        var player = batchPlayers[a];
+        var distance = batchDistances[a];
+        set(a, batchChunks[b], batchPlayers[b], batchDistances[b]);
+        set(b, chunk, player, distance);
+    }
+
+    private void run(ChunkPos pos, ServerPlayerEntity player) {
+        if (player.isRemoved() || player.getServerWorld() != world) return;
+        var chunk = world.getChunkManager().getWorldChunk(pos.x, pos.z);
+        if (chunk == null) return;
+        ((ChunkWatcherIndexDuck)world).polymc$getChunkWatcherIndex().promote(pos.toLong(), player);
+        try {
+            ((WizardChunkDuck)chunk).polymc$spawnWizardsFor(player);
+        } catch (Throwable t) {
+            PolyMc.LOGGER.error("Failed to spawn the wizards of chunk "+pos+" for "+player.getName().getString());
+            t.printStackTrace();
+        }
+    }
+
+    /**
+     * @return the amount of chunk and player combinations that are still waiting
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * @return the time spent creating and spawning wizards during the last tick, in nanoseconds
+     */
+    public long getLastTickNanos() {
+        return lastTickNanos;
+    }
+
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    /**
+     * @return the amount of chunk and player combinations that have been handled
+     */
+    public long getProcessed() {
+        return processed;
+    }
+}
@@ -0,0 +1,110 @@
+package io.github.theepicblock.polymc.impl.poly.wizard;
+
+import io.github.theepicblock.polymc.api.PolyMap;
+import io.github.theepicblock.polymc.api.block.BlockPoly;
+import net.minecraft.block.BlockState;
+import net.minecraft.util.collection.PackedIntegerArray;
+import net.minecraft.util.collection.PaletteStorage;
+import net.minecraft.world.chunk.Palette;
+
+/**
+ * Finds the blocks in a chunk section which need a wizard.
+ * @see io.github.theepicblock.polymc.mixins.wizards.block.WorldChunkMixin
+ */
+public class WizardPaletteScanner {
+    public static void scan(PolyMap polyMap, Palette<BlockState> palette, PaletteStorage data, WizardBlockConsumer consumer) {
+        if (data.getSize() == 0) return;
+
+        if (palette.getSize() < 256) {
+            // The palette contains all block states present in the chunk
+            var idsWithPolys = new BlockPoly[palette.getSize()];
+            for (int i = 0; i < palette.getSize(); i++) {
+                var state = palette.get(i);
+                var poly = polyMap.getBlockPoly(state.getBlock());
+                if (poly != null && poly.hasWizard()) {
+                    idsWithPolys[i] = poly;
+                }
+            }
+
+            if (data instanceof PackedIntegerArray) {
+                // Fast way of iterating the packed data with an index
+                int i = 0;
+
+                var elementBits = data.getElementBits();
+                var elementsPerLong = (char)(64 / elementBits);
+                var maxValue = (1L << elementBits) - 1L;
+                var size = data.getSize();
+
+                data:
+                for (long l : data.getData()) {
+                    for (int j = 0; j < elementsPerLong; ++j) {
+                        var blockIndex = (int)(l & maxValue);
+                        var poly = idsWithPolys[blockIndex];
+                        if (poly != null) {
+                            consumer.accept(poly, i);
+                        }
+
+                        l >>= elementBits;
+                        ++i;
+                        if (i >= size) {
+                            break data;
+                        }
+                    }
+                }
+            } else {
+                for (int i = 0; i < data.getSize(); i++) {
+                    var blockIndex = data.get(i);
+                    var poly = idsWithPolys[blockIndex];
+                    if (poly != null) {
+                        consumer.accept(poly, i);
+                    }
+                }
+            }
+        } else {
+            // It's not worth iterating the palette, instead iterate the blocks in the data
+            if (data instanceof PackedIntegerArray) {
+                // Fast way of iterating the packed data with an index
+                int i = 0;
+
+                var elementBits = data.getElementBits();
+                var elementsPerLong = (char)(64 / elementBits);
+                var maxValue = (1L << elementBits) - 1L;
+                var size = data.getSize();
+
+                data:
+                for (long l : data.getData()) {
+                    for (int j = 0; j < elementsPerLong; ++j) {
+                        var blockIndex = (int)(l & maxValue);
+                        var poly = polyMap.getBlockPoly(palette.get(blockIndex).getBlock());
+                        if (poly != null && poly.hasWizard()) {
+                            consumer.accept(poly, i);
+                        }
+
+                        l >>= elementBits;
+                        ++i;
+                        if (i >= size) {
+                            break data;
+                        }
+                    }
+                }
+            } else {
+                for (int i = 0; i < data.getSize(); i++) {
+                    var blockIndex = data.get(i);
+                    var poly = polyMap.getBlockPoly(palette.get(blockIndex).getBlock());
+                    if (poly != null && poly.hasWizard()) {
+                        consumer.accept(poly, i);
+                    }
+                }
+            }
+        }
+    }
+
+    @FunctionalInterface
+    public interface WizardBlockConsumer {
+        /**
+         * @param index the index of the block inside the {@link net.minecraft.world.chunk.PalettedContainer}
+         * @see io.github.theepicblock.polymc.impl.Util#fromPalettedContainerIndex(int)
+         */
+        void accept(BlockPoly poly, int index);
+    }
+}
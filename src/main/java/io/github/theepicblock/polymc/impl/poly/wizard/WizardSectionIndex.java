@@ -0,0 +1,67 @@
+package io.github.theepicblock.polymc.impl.poly.wizard;
+
+import io.github.theepicblock.polymc.api.PolyMap;
+import io.github.theepicblock.polymc.mixins.wizards.block.PalettedContainerAccessor;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectArrayMap;
+import it.unimi.dsi.fastutil.shorts.ShortOpenHashSet;
+import it.unimi.dsi.fastutil.shorts.ShortSet;
+import it.unimi.dsi.fastutil.shorts.ShortSets;
+import net.minecraft.block.BlockState;
+import net.minecraft.world.chunk.ChunkSection;
+import org.jetbrains.annotations.ApiStatus;
+
+/**
+ * Remembers which blocks in a chunk section need a wizard, so the chunk doesn't need to scan the section again every time its wizards are created.
+ * The positions are stored per {@link PolyMap}, as the index of their {@link net.minecraft.world.chunk.PalettedContainer}.
+ * <p>
+ * An index for a map is only built the first time it's requested, by scanning the palette with {@link WizardPaletteScanner}.
+ * After that it's kept up-to-date by {@link io.github.theepicblock.polymc.mixins.wizards.block.ChunkSectionMixin} whenever a block is set.
+ * Sections without any wizard blocks share an empty set, so they only cost a map entry.
+ * <p>
+ * Should only be accessed from the server thread.
+ */
+@ApiStatus.Internal
+public class WizardSectionIndex {
+    private final Reference2ObjectArrayMap<PolyMap, ShortSet> positions = new Reference2ObjectArrayMap<>(1);
+
+    /**
+     * @return the indices of the blocks in this section that have a wizard in this map. This set should not be modified
+     * @see io.github.theepicblock.polymc.impl.Util#fromPalettedContainerIndex(int)
+     */
+    @SuppressWarnings("unchecked")
+    public ShortSet get(PolyMap map, ChunkSection section) {
+        var set = positions.get(map);
+        if (set == null) {
+            var data = ((PalettedContainerAccessor<BlockState>)section.getBlockStateContainer()).getData();
+            var found = new ShortOpenHashSet();
+            WizardPaletteScanner.scan(map, data.palette(), data.storage(), (poly, index) -> found.add((short)index));
+            set = found.isEmpty() ? ShortSets.EMPTY_SET : found;
+            positions.put(map, set);
+        }
+        return set;
+    }
+
+    /**
+     * Called after a block in the section was set
+     * @param index the index of the block inside the {@link net.minecraft.world.chunk.PalettedContainer}
+     */
+    public void onSet(int index, BlockState state) {
+        for (var entry : positions.reference2ObjectEntrySet()) {
+            var poly = entry.getKey().getBlockPoly(state.getBlock());
+            var set = entry.getValue();
+            if (poly != null && poly.hasWizard()) {
+                if (set == ShortSets.EMPTY_SET) {
+                    set = new ShortOpenHashSet();
+                    entry.setValue(set);
+                }
+                set.add((short)index);
+            } else if (set != ShortSets.EMPTY_SET) {
+                set.remove((short)index);
+            }
+        }
+    }
+
+    public static int toIndex(int x, int y, int z) {
+        return (y << 8) | (z << 4) | x;
+    }
+}
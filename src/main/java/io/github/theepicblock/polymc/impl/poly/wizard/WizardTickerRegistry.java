@@ -0,0 +1,203 @@
+package io.github.theepicblock.polymc.impl.poly.wizard;
+
+import io.github.theepicblock.polymc.api.PolyMap;
+import io.github.theepicblock.polymc.api.wizard.Wizard;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectArrayMap;
+import net.minecraft.util.math.ChunkPos;
+import org.jetbrains.annotations.ApiStatus;
+
+import java.util.*;
+
+/**
+ * Keeps track of the wizards in a world that need to be ticked.
+ * All modifications happen on the main thread, on plain collections. Other threads can only see the tickers through a {@link Snapshot},
+ * which is immutable and only swapped out by {@link #publish()}. That means a whole tick worth of changes is batched into a single new snapshot,
+ * and readers never need to take a lock.
+ * <p>
+ * To keep publishing cheap, the copy of each position's wizard list is reused until a wizard is added to or removed from that position.
+ * <p>
+ * Only chunks that are being watched by a player with the same map are active, wizards in other chunks are dormant.
+ * Those are still tracked, but aren't ticked and aren't part of the snapshot. The {@link ChunkWatcherIndex} tells this registry which chunks are watched.
+ * @see io.github.theepicblock.polymc.mixins.wizards.WorldMixin
+ */
+@ApiStatus.Internal
+public class WizardTickerRegistry implements ChunkWatcherIndex.Listener {
+    private final Map<PolyMap, Map<ChunkPos, List<Wizard>>> blockTickers = new Reference2ObjectArrayMap<>();
+    /**
+     * The entries of {@link #blockTickers} that are in watched chunks. The lists are shared with {@link #blockTickers}
+     */
+    private final Map<PolyMap, Map<ChunkPos, List<Wizard>>> activeBlockTickers = new Reference2ObjectArrayMap<>();
+    private final Map<PolyMap, LongSet> watchedChunks = new Reference2ObjectArrayMap<>();
+    private final Map<PolyMap, Set<Wizard>> entityTickers = new Reference2ObjectArrayMap<>();
+    /**
+     * Immutable copies of the lists in {@link #blockTickers}. Entries are removed when the list they're copied from changes
+     */
+    private final Map<PolyMap, Map<ChunkPos, BlockTickers>> frozenBlockTickers = new Reference2ObjectArrayMap<>();
+    private boolean blocksChanged = false;
+    private boolean entitiesChanged = false;
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+
+    public void addBlockTicker(PolyMap polyMap, ChunkPos pos, Wizard wizard) {
+        var wizardsPerPos = blockTickers.computeIfAbsent(polyMap, v -> new HashMap<>());
+        var wizardList = wizardsPerPos.get(pos);
+        if (wizardList == null) {
+            wizardList = new ArrayList<>();
+            wizardsPerPos.put(pos, wizardList);
+            var watched = watchedChunks.get(polyMap);
+            if (watched != null && watched.contains(pos.toLong())) {
+                activeBlockTickers.computeIfAbsent(polyMap, v -> new HashMap<>()).put(pos, wizardList);
+            }
+        }
+        wizardList.add(wizard);
+        markChanged(polyMap, pos);
+    }
+
+    public void removeBlockTicker(PolyMap polyMap, ChunkPos pos, Wizard wizard) {
+        var wizardsPerPos = blockTickers.get(polyMap);
+        if (wizardsPerPos == null) return;
+
+        var wizardList = wizardsPerPos.get(pos);
+        if (wizardList == null || !wizardList.remove(wizard)) return;
+
+        if (wizardList.isEmpty()) {
+            wizardsPerPos.remove(pos);
+            removeActive(polyMap, pos);
+        }
+        markChanged(polyMap, pos);
+    }
+
+    @Override
+    public void onWatched(PolyMap map, long pos) {
+        watchedChunks.computeIfAbsent(map, m -> new LongOpenHashSet()).add(pos);
+
+        var wizardsPerPos = blockTickers.get(map);
+        if (wizardsPerPos == null) return;
+        var chunkPos = new ChunkPos(pos);
+        var wizardList = wizardsPerPos.get(chunkPos);
+        if (wizardList != null) {
+            activeBlockTickers.computeIfAbsent(map, v -> new HashMap<>()).put(chunkPos, wizardList);
+            blocksChanged = true;
+        }
+    }
+
+    @Override
+    public void onUnwatched(PolyMap map, long pos) {
+        var watched = watchedChunks.get(map);
+        if (watched != null) {
+            watched.remove(pos);
+            if (watched.isEmpty()) watchedChunks.remove(map);
+        }
+        if (removeActive(map, new ChunkPos(pos))) {
+            blocksChanged = true;
+        }
+    }
+
+    private boolean removeActive(PolyMap map, ChunkPos pos) {
+        var active = activeBlockTickers.get(map);
+        if (active == null || active.remove(pos) == null) return false;
+        if (active.isEmpty()) activeBlockTickers.remove(map);
+        return true;
+    }
+
+    public void addEntityTicker(PolyMap polyMap, Wizard wizard) {
+        if (entityTickers.computeIfAbsent(polyMap, v -> new HashSet<>()).add(wizard)) {
+            entitiesChanged = true;
+        }
+    }
+
+    public void removeEntityTicker(PolyMap polyMap, Wizard wizard) {
+        var set = entityTickers.get(polyMap);
+        if (set != null && set.remove(wizard)) {
+            entitiesChanged = true;
+        }
+    }
+
+    /**
+     * @return the live block tickers, including dormant ones. Should only be used on the main thread
+     */
+    public Map<PolyMap, Map<ChunkPos, List<Wizard>>> getBlockTickers() {
+        return blockTickers;
+    }
+
+    /**
+     * @return the live block tickers in chunks that are being watched. Should only be used on the main thread
+     */
+    public Map<PolyMap, Map<ChunkPos, List<Wizard>>> getActiveBlockTickers() {
+        return activeBlockTickers;
+    }
+
+    /**
+     * @return the amount of chunks (counted once per map) with tickers that are being watched
+     */
+    public int getActiveChunkCount() {
+        var count = 0;
+        for (var wizardsPerPos : activeBlockTickers.values()) count += wizardsPerPos.size();
+        return count;
+    }
+
+    /**
+     * @return the amount of chunks (counted once per map) with tickers that nobody is watching
+     */
+    public int getDormantChunkCount() {
+        var count = 0;
+        for (var wizardsPerPos : blockTickers.values()) count += wizardsPerPos.size();
+        return count - getActiveChunkCount();
+    }
+
+    /**
+     * Makes all changes since the last call visible in the snapshot. Must be called on the main thread
+     * @return the new snapshot
+     */
+    public Snapshot publish() {
+        if (!blocksChanged && !entitiesChanged) return snapshot;
+        var old = snapshot;
+
+        var blocks = old.blocks();
+        if (blocksChanged) {
+            var newBlocks = new ArrayList<BlockTickers>();
+            activeBlockTickers.forEach((polyMap, wizardsPerPos) -> {
+                var frozen = frozenBlockTickers.computeIfAbsent(polyMap, v -> new HashMap<>());
+                wizardsPerPos.forEach((pos, wizards) -> newBlocks.add(
+                        frozen.computeIfAbsent(pos, p -> new BlockTickers(polyMap, p, List.copyOf(wizards)))));
+            });
+            blocks = Collections.unmodifiableList(newBlocks);
+        }
+
+        var entities = old.entities();
+        if (entitiesChanged) {
+            var newEntities = new ArrayList<EntityTicker>();
+            entityTickers.forEach((polyMap, wizards) -> wizards.forEach(wizard -> newEntities.add(new EntityTicker(polyMap, wizard))));
+            entities = Collections.unmodifiableList(newEntities);
+        }
+
+        blocksChanged = false;
+        entitiesChanged = false;
+        return snapshot = new Snapshot(old.epoch() + 1, blocks, entities);
+    }
+
+    /**
+     * @return the last published snapshot. Safe to call from any thread
+     */
+    public Snapshot getSnapshot() {
+        return snapshot;
+    }
+
+    private void markChanged(PolyMap polyMap, ChunkPos pos) {
+        var frozen = frozenBlockTickers.get(polyMap);
+        if (frozen != null) frozen.remove(pos);
+        blocksChanged = true;
+    }
+
+    /**
+     * @param epoch increases by one every time a snapshot with changes is published
+     */
+    public record Snapshot(long epoch, List<BlockTickers> blocks, List<EntityTicker> entities) {
+        public static final Snapshot EMPTY = new Snapshot(0, List.of(), List.of());
+    }
+
+    public record BlockTickers(PolyMap polyMap, ChunkPos pos, List<Wizard> wizards) {}
+
+    public record EntityTicker(PolyMap polyMap, Wizard wizard) {}
+}
@@ -0,0 +1,97 @@
+package io.github.theepicblock.polymc.impl.poly.wizard;
+
+import io.github.theepicblock.polymc.api.wizard.Wizard;
+import org.jetbrains.annotations.ApiStatus;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps track of how well the {@link ThreadedWizardUpdater} is keeping up with its target rate.
+ * An update is late if it started after the frame it belonged to should've already ended.
+ * Lateness is counted per type of wizard, as there can be a lot of wizards that come and go.
+ */
+@ApiStatus.Internal
+public class WizardUpdaterStats {
+    private static final long WINDOW_NANOS = 1_000_000_000L;
+
+    private final int targetRate;
+    private final int threads;
+    private final LongAdder frames = new LongAdder();
+    private final LongAdder skippedFrames = new LongAdder();
+    private final LongAdder lateUpdates = new LongAdder();
+    private final Map<Class<? extends Wizard>, LongAdder> lateUpdatesPerType = new ConcurrentHashMap<>();
+
+    // Only accessed by the updater thread
+    private long windowStart = System.nanoTime();
+    private int windowFrames;
+    private volatile double achievedRate;
+
+    public WizardUpdaterStats(int targetRate, int threads) {
+        this.targetRate = targetRate;
+        this.threads = threads;
+    }
+
+    void onFrame(long now) {
+        frames.increment();
+        windowFrames++;
+        if (now - windowStart >= WINDOW_NANOS) {
+            achievedRate = windowFrames * (double)WINDOW_NANOS / (now - windowStart);
+            windowStart = now;
+            windowFrames = 0;
+        }
+    }
+
+    void onFramesSkipped(long amount) {
+        skippedFrames.add(amount);
+    }
+
+    /**
+     * Can be called from any of the updating threads
+     */
+    void onLateUpdate(Wizard wizard) {
+        lateUpdates.increment();
+        lateUpdatesPerType.computeIfAbsent(wizard.getClass(), c -> new LongAdder()).increment();
+    }
+
+    public int getTargetRate() {
+        return targetRate;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * @return the amount of frames that were actually done over the last second
+     */
+    public double getAchievedRate() {
+        return achievedRate;
+    }
+
+    public long getFrames() {
+        return frames.sum();
+    }
+
+    public long getSkippedFrames() {
+        return skippedFrames.sum();
+    }
+
+    public long getLateUpdates() {
+        return lateUpdates.sum();
+    }
+
+    /**
+     * @return the wizard types with the most late updates, sorted from most to least
+     */
+    public List<Map.Entry<Class<? extends Wizard>, Long>> getLateUpdatesPerType(int limit) {
+        return lateUpdatesPerType.entrySet().stream()
+                .map(e -> Map.entry(e.getKey(), e.getValue().sum()))
+                .sorted(Map.Entry.<Class<? extends Wizard>, Long>comparingByValue(Comparator.reverseOrder()))
+                .limit(limit)
+                .toList();
+    }
+}
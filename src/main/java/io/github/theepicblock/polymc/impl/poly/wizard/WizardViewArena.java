@@ -0,0 +1,102 @@
+package io.github.theepicblock.polymc.impl.poly.wizard;
+
+import io.github.theepicblock.polymc.api.PolyMap;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
+import net.minecraft.server.network.PlayerAssociatedNetworkHandler;
+import net.minecraft.server.network.ServerPlayerEntity;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Hands out {@link PooledPlayerView}s, so the hot paths of wizards don't need to allocate a new view every time.
+ * The views stay valid until the start of the next tick, after which they're all reused.
+ * This means views from the arena must never be stored anywhere.
+ * <p>
+ * Each thread has its own arena. Only the server thread's arena is reset every tick,
+ * other threads get at most {@link #MAX_VIEWS} pooled views after which new ones are allocated.
+ */
+@ApiStatus.Internal
+public class WizardViewArena {
+    private static final int MAX_VIEWS = 4096;
+    private static final ThreadLocal<WizardViewArena> ARENA = ThreadLocal.withInitial(WizardViewArena::new);
+
+    private final ArrayList<PooledPlayerView> views = new ArrayList<>();
+    private int cursor;
+
+    /**
+     * Creates a separate arena, which needs to be {@link #reset()} manually. Use {@link #get()} to get the arena for the current thread instead
+     */
+    public WizardViewArena() {}
+
+    public static void registerEvents() {
+        ServerTickEvents.START_SERVER_TICK.register(server -> get().reset());
+    }
+
+    /**
+     * @return the arena of the current thread
+     */
+    public static WizardViewArena get() {
+        return ARENA.get();
+    }
+
+    public PooledPlayerView single(ServerPlayerEntity player, @Nullable PlayerPacketBuffer buffer) {
+        var view = next();
+        view.resetSingle(player, buffer);
+        return view;
+    }
+
+    /**
+     * @param players the list is used as is, it won't be copied
+     * @param filter only players using this map will receive packets. Null if all players already use the right map,
+     *               such as the lists from {@link ChunkWatcherIndex#getWatchers(long, PolyMap)}
+     */
+    public PooledPlayerView players(List<ServerPlayerEntity> players, @Nullable PolyMap filter) {
+        return players(players, filter, null);
+    }
+
+    /**
+     * @param players the list is used as is, it won't be copied
+     * @param filter only players using this map will receive packets, or everyone if it's null
+     * @param buffer if not null, packets will be collected into this buffer instead of being sent immediately
+     */
+    public PooledPlayerView players(List<ServerPlayerEntity> players, @Nullable PolyMap filter, @Nullable PlayerPacketBuffer buffer) {
+        var view = next();
+        view.resetPlayers(players, filter, buffer);
+        return view;
+    }
+
+    /**
+     * @param listeners the set is used as is, it won't be copied
+     */
+    public PooledPlayerView listeners(Set<PlayerAssociatedNetworkHandler> listeners, PolyMap filter) {
+        var view = next();
+        view.resetListeners(listeners, filter, null);
+        return view;
+    }
+
+    /**
+     * Makes all views available again. Any view that was handed out before must not be used anymore
+     */
+    public void reset() {
+        for (int i = 0; i < cursor; i++) {
+            views.get(i).clear();
+        }
+        cursor = 0;
+    }
+
+    private PooledPlayerView next() {
+        if (cursor < views.size()) {
+            return views.get(cursor++);
+        }
+        var view = new PooledPlayerView();
+        if (views.size() < MAX_VIEWS) {
+            views.add(view);
+            cursor++;
+        }
+        return view;
+    }
+}
@@ -0,0 +1,158 @@
+package io.github.theepicblock.polymc.impl.poly.wizard;
+
+import io.github.theepicblock.polymc.api.PolyMap;
+import io.github.theepicblock.polymc.api.wizard.Wizard;
+import io.github.theepicblock.polymc.impl.mixin.ChunkWatcherIndexDuck;
+import io.github.theepicblock.polymc.impl.mixin.WizardTickerDuck;
+import it.unimi.dsi.fastutil.longs.Long2ObjectLinkedOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.math.ChunkSectionPos;
+import net.minecraft.util.math.MathHelper;
+import org.jetbrains.annotations.ApiStatus;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An immutable copy of every wizard the {@link ThreadedWizardUpdater} needs to update, together with the players that should receive its packets.
+ * This is captured on the main thread at the end of every tick, so the updater thread never needs to read the world or the chunk watchers,
+ * which are both being modified by the main thread. The wizard lists are shared with the {@link WizardTickerRegistry.Snapshot} they came from,
+ * and the watcher lists with the {@link ChunkWatcherIndex}, which replaces them instead of modifying them.
+ * <p>
+ * A {@link Capturer} reuses the entries of its previous snapshot whose wizards and watchers are still the same,
+ * and the whole snapshot if nothing changed at all.
+ */
+@ApiStatus.Internal
+public record WizardWatcherSnapshot(List<Region> regions) {
+    public static final WizardWatcherSnapshot EMPTY = new WizardWatcherSnapshot(List.of());
+    /**
+     * Regions are 8x8 chunks, so that wizards which are close together are updated by the same thread
+     */
+    private static final int REGION_SHIFT = 3;
+
+    /**
+     * @return all entries of all regions
+     */
+    public List<Entry> entries() {
+        return regions.stream().flatMap(region -> region.entries().stream()).toList();
+    }
+
+    /**
+     * @param players the players that are watching these wizards and use the same map as them,
+     *                this is the list from {@link ChunkWatcherIndex#getWatchers(long, PolyMap)}
+     */
+    public record Entry(List<Wizard> wizards, List<ServerPlayerEntity> players) {}
+
+    public record Region(List<Entry> entries) {}
+
+    /**
+     * Captures snapshots, remembering what it captured last time. Must only be used on the main thread
+     */
+    public static class Capturer {
+        private final Map<ServerWorld, WorldCapture> worlds = new IdentityHashMap<>();
+        private WizardWatcherSnapshot last = EMPTY;
+
+        public WizardWatcherSnapshot capture(MinecraftServer server) {
+            var changed = false;
+            var worldCount = 0;
+            for (var world : server.getWorlds()) {
+                changed |= worlds.computeIfAbsent(world, w -> new WorldCapture()).update(world);
+                worldCount++;
+            }
+            if (worlds.size() != worldCount) {
+                // A world was unloaded
+                var current = new HashSet<ServerWorld>();
+                server.getWorlds().forEach(current::add);
+                worlds.keySet().retainAll(current);
+                changed = true;
+            }
+            if (!changed) return last;
+
+            var regions = new ArrayList<Region>();
+            for (var world : server.getWorlds()) {
+                regions.addAll(worlds.get(world).regions);
+            }
+            return last = new WizardWatcherSnapshot(List.copyOf(regions));
+        }
+    }
+
+    private static class WorldCapture {
+        private WizardTickerRegistry.Snapshot tickers = WizardTickerRegistry.Snapshot.EMPTY;
+        /**
+         * The entries of the last capture, keyed by the {@link WizardTickerRegistry.BlockTickers} or {@link WizardTickerRegistry.EntityTicker} they were made from
+         */
+        private Map<Object, Entry> entries = new IdentityHashMap<>();
+        private List<Region> regions = List.of();
+
+        /**
+         * @return true if anything changed since the last time
+         */
+        private boolean update(ServerWorld world) {
+            var index = ((ChunkWatcherIndexDuck)world).polymc$getChunkWatcherIndex();
+            var newTickers = ((WizardTickerDuck)world).polymc$getTickerRegistry().publish();
+            if (newTickers == tickers && isUpToDate(index)) return false;
+
+            var newEntries = new IdentityHashMap<Object, Entry>();
+            var entriesPerRegion = new Long2ObjectLinkedOpenHashMap<List<Entry>>();
+            for (var ticker : newTickers.entities()) {
+                var pos = getChunkPos(ticker.wizard());
+                var players = index.getWatchers(pos, ticker.polyMap());
+                var entry = entries.get(ticker);
+                if (entry == null || entry.players() != players) {
+                    entry = new Entry(List.of(ticker.wizard()), players);
+                }
+                newEntries.put(ticker, entry);
+                getRegion(entriesPerRegion, pos).add(entry);
+            }
+            for (var ticker : newTickers.blocks()) {
+                var players = index.getWatchers(ticker.pos().toLong(), ticker.polyMap());
+                var entry = entries.get(ticker);
+                if (entry == null || entry.players() != players) {
+                    entry = new Entry(ticker.wizards(), players);
+                }
+                newEntries.put(ticker, entry);
+                getRegion(entriesPerRegion, ticker.pos().toLong()).add(entry);
+            }
+
+            var newRegions = new ArrayList<Region>(entriesPerRegion.size());
+            entriesPerRegion.values().forEach(regionEntries -> newRegions.add(new Region(Collections.unmodifiableList(regionEntries))));
+            this.tickers = newTickers;
+            this.entries = newEntries;
+            this.regions = newRegions;
+            return true;
+        }
+
+        /**
+         * @return true if the watchers of every entry are still the same, and no entity wizard moved to another chunk
+         */
+        private boolean isUpToDate(ChunkWatcherIndex index) {
+            for (var ticker : tickers.entities()) {
+                var entry = entries.get(ticker);
+                if (entry == null || entry.players() != index.getWatchers(getChunkPos(ticker.wizard()), ticker.polyMap())) return false;
+            }
+            for (var ticker : tickers.blocks()) {
+                var entry = entries.get(ticker);
+                if (entry == null || entry.players() != index.getWatchers(ticker.pos().toLong(), ticker.polyMap())) return false;
+            }
+            return true;
+        }
+    }
+
+    private static long getChunkPos(Wizard wizard) {
+        var pos = wizard.getPosition();
+        return ChunkPos.toLong(ChunkSectionPos.getSectionCoord(MathHelper.floor(pos.x)), ChunkSectionPos.getSectionCoord(MathHelper.floor(pos.z)));
+    }
+
+    private static List<Entry> getRegion(Long2ObjectMap<List<Entry>> entriesPerRegion, long pos) {
+        var regionPos = ChunkPos.toLong(ChunkPos.getPackedX(pos) >> REGION_SHIFT, ChunkPos.getPackedZ(pos) >> REGION_SHIFT);
+        return entriesPerRegion.computeIfAbsent(regionPos, k -> new ArrayList<>());
+    }
+}
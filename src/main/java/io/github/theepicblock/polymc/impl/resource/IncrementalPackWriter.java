@@ -0,0 +1,189 @@
+package io.github.theepicblock.polymc.impl.resource;
+
+import com.google.common.hash.Hashing;
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import io.github.theepicblock.polymc.api.resource.PolyMcAsset;
+import io.github.theepicblock.polymc.api.resource.PolyMcResourcePack;
+import io.github.theepicblock.polymc.impl.misc.logging.SimpleLogger;
+import net.fabricmc.loader.api.FabricLoader;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * Writes a resource pack to a folder, only touching files that actually changed since the last time it was written.
+ * Every asset of the pack is serialized in memory using {@link PolyMcAsset#writeToStream(OutputStream, Gson)} and {@link PolyMcAsset#writeMetaToStream(PolyMcAsset.StreamSupplier, Gson)},
+ * so custom assets are written exactly like they would be otherwise. Only the files whose hash differs are then written to disk.
+ * A manifest with the size and hash of every file that was written is kept in PolyMc's cache folder,
+ * so unchanged files can be skipped without having to read them back from the destination.
+ */
+public class IncrementalPackWriter {
+    private static final Path MANIFEST_DIR = FabricLoader.getInstance().getGameDir().resolve("polymc/cache");
+
+    private final Path location;
+    private final Path manifestFile;
+    private final SimpleLogger logger;
+    private final Map<String, Entry> oldManifest;
+    private final Map<String, Entry> newManifest = new TreeMap<>();
+
+    private long filesWritten;
+    private long bytesWritten;
+    private long filesSkipped;
+    private long bytesSkipped;
+    private long filesDeleted;
+
+    private IncrementalPackWriter(Path location, SimpleLogger logger) {
+        this.location = location;
+        this.manifestFile = MANIFEST_DIR.resolve("pack_manifest_" + location.getFileName() + ".json");
+        this.logger = logger;
+        this.oldManifest = readManifest(manifestFile, logger);
+    }
+
+    /**
+     * Writes the pack into {@code location}, removing any files in the assets folder that aren't part of the pack anymore.
+     */
+    public static Result write(PolyMcResourcePack pack, Path location, SimpleLogger logger) {
+        var writer = new IncrementalPackWriter(location, logger);
+        var gson = pack.getGson();
+        pack.forEachAsset((namespace, path, asset) -> {
+            var relativePath = ResourceConstants.ASSETS + namespace + "/" + path;
+            try {
+                var content = new ByteArrayOutputStream();
+                asset.writeToStream(content, gson);
+                writer.writeFile(relativePath, content.toByteArray());
+
+                var meta = new MetaBuffer();
+                asset.writeMetaToStream(meta, gson);
+                if (meta.buffer != null) {
+                    writer.writeFile(relativePath + ".mcmeta", meta.buffer.toByteArray());
+                }
+            } catch (IOException e) {
+                logger.error("Error writing to " + relativePath);
+                e.printStackTrace();
+            } catch (Exception e) {
+                logger.error("Unknown error whilst writing to " + relativePath);
+                e.printStackTrace();
+            }
+        });
+        writer.deleteStaleFiles();
+        writer.writeManifest();
+        return new Result(writer.filesWritten, writer.bytesWritten, writer.filesSkipped, writer.bytesSkipped, writer.filesDeleted);
+    }
+
+    private void writeFile(String relativePath, byte[] content) throws IOException {
+        var entry = new Entry(content.length, Hashing.murmur3_128().hashBytes(content).toString());
+        newManifest.put(relativePath, entry);
+
+        var destination = location.resolve(relativePath);
+        // The size check catches files that were removed or changed by something else
+        if (entry.equals(oldManifest.get(relativePath)) && Files.isRegularFile(destination) && Files.size(destination) == entry.size()) {
+            filesSkipped++;
+            bytesSkipped += entry.size();
+            return;
+        }
+
+        Files.createDirectories(destination.getParent());
+        Files.write(destination, content);
+        filesWritten++;
+        bytesWritten += entry.size();
+    }
+
+    /**
+     * Removes everything inside the assets folder that wasn't written by this pack, including any empty folders that are left over
+     */
+    private void deleteStaleFiles() {
+        var assetsFolder = location.resolve(ResourceConstants.ASSETS);
+        if (!Files.isDirectory(assetsFolder)) return;
+
+        try (Stream<Path> files = Files.walk(assetsFolder)) {
+            for (var file : files.sorted(Comparator.reverseOrder()).toList()) {
+                if (Files.isDirectory(file)) {
+                    try (var contents = Files.list(file)) {
+                        if (contents.findAny().isEmpty()) Files.delete(file);
+                    }
+                    continue;
+                }
+                var relativePath = location.relativize(file).toString().replace(File.separatorChar, '/');
+                if (!newManifest.containsKey(relativePath)) {
+                    Files.delete(file);
+                    filesDeleted++;
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("Couldn't clean up the assets folder. There may still be some unneeded files in there");
+            e.printStackTrace();
+        }
+    }
+
+    private void writeManifest() {
+        var json = new JsonObject();
+        newManifest.forEach((path, entry) -> {
+            var entryJson = new JsonObject();
+            entryJson.addProperty("size", entry.size());
+            entryJson.addProperty("hash", entry.hash());
+            json.add(path, entryJson);
+        });
+
+        try {
+            Files.createDirectories(MANIFEST_DIR);
+            Files.writeString(manifestFile, json.toString(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            logger.warn("Failed to write the resource pack manifest, the next pack will be written in full");
+            e.printStackTrace();
+        }
+    }
+
+    private static Map<String, Entry> readManifest(Path manifestFile, SimpleLogger logger) {
+        var manifest = new HashMap<String, Entry>();
+        if (!Files.exists(manifestFile)) return manifest;
+
+        try (var reader = Files.newBufferedReader(manifestFile, StandardCharsets.UTF_8)) {
+            var json = JsonParser.parseReader(reader).getAsJsonObject();
+            json.entrySet().forEach(e -> {
+                var entryJson = e.getValue().getAsJsonObject();
+                manifest.put(e.getKey(), new Entry(entryJson.get("size").getAsLong(), entryJson.get("hash").getAsString()));
+            });
+        } catch (Exception e) {
+            logger.warn("Failed to read the resource pack manifest, the pack will be written in full");
+            e.printStackTrace();
+            manifest.clear();
+        }
+        return manifest;
+    }
+
+    private record Entry(long size, String hash) {}
+
+    /**
+     * Only has a buffer if the asset actually has a metafile
+     */
+    private static class MetaBuffer implements PolyMcAsset.StreamSupplier {
+        private @Nullable ByteArrayOutputStream buffer;
+
+        @Override
+        public OutputStream get() {
+            if (buffer == null) buffer = new ByteArrayOutputStream();
+            return buffer;
+        }
+    }
+
+    public record Result(long filesWritten, long bytesWritten, long filesSkipped, long bytesSkipped, long filesDeleted) {
+        @Override
+        public String toString() {
+            return String.format("wrote %d files (%d bytes), skipped %d unchanged files (%d bytes), deleted %d stale files",
+                    filesWritten, bytesWritten, filesSkipped, bytesSkipped, filesDeleted);
+        }
+    }
+}
@@ -21,32 +21,23 @@ import io.github.theepicblock.polymc.api.PolyMap;
 import io.github.theepicblock.polymc.api.resource.PolyMcResourcePack;
 import io.github.theepicblock.polymc.impl.misc.logging.SimpleLogger;
 import net.fabricmc.loader.api.FabricLoader;
-import org.apache.commons.io.FileUtils;
 
-import java.io.File;
-import java.io.IOException;
 import java.nio.file.Path;
 
 public class ResourcePackGenerator {
     // TODO event
 
-    public static void cleanAndWrite(PolyMcResourcePack pack, String directory, SimpleLogger logger) {
-
+    /**
+     * Writes the pack into the directory, relative to the game dir.
+     * Files that haven't changed since the last time the pack was written are skipped and files that are no longer part of the pack are removed.
+     * @see IncrementalPackWriter
+     */
+    public static IncrementalPackWriter.Result cleanAndWrite(PolyMcResourcePack pack, String directory, SimpleLogger logger) {
         Path gameDir = FabricLoader.getInstance().getGameDir();
         Path resourcePath = gameDir.resolve(directory).toAbsolutePath();
         resourcePath.toFile().mkdir();
 
-        //Clear up the assets folder
-        File assetsFolder = resourcePath.resolve("assets").toFile();
-        if (assetsFolder.exists() && assetsFolder.isDirectory()) {
-            try {
-                FileUtils.deleteDirectory(assetsFolder);
-            } catch (IOException e) {
-                logger.warn("Couldn't delete the assets folder. There may still be some unneeded files in there");
-            }
-        }
-
-        pack.write(resourcePath, logger);
+        return IncrementalPackWriter.write(pack, resourcePath, logger);
     }
 
     /**
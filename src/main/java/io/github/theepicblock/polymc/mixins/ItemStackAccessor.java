@@ -1,7 +1,9 @@
 package io.github.theepicblock.polymc.mixins;
 
 import net.minecraft.item.ItemStack;
+import net.minecraft.nbt.NbtCompound;
 import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.gen.Accessor;
 import org.spongepowered.asm.mixin.gen.Invoker;
 
 @Mixin(ItemStack.class)
@@ -13,4 +15,10 @@ public interface ItemStackAccessor {
 
     @Invoker
     int callGetHideFlags();
+
+    /**
+     * Sets the nbt without any of the side effects of {@link ItemStack#setNbt(NbtCompound)}
+     */
+    @Accessor("nbt")
+    void setNbtField(NbtCompound nbt);
 }
@@ -20,6 +20,7 @@ package io.github.theepicblock.polymc.mixins;
 import io.github.theepicblock.polymc.PolyMc;
 import io.github.theepicblock.polymc.api.PolyMap;
 import io.github.theepicblock.polymc.api.misc.PolyMapProvider;
+import io.github.theepicblock.polymc.impl.misc.PolyMapCohorts;
 import net.fabricmc.loader.api.FabricLoader;
 import net.minecraft.network.ClientConnection;
 import org.spongepowered.asm.mixin.Mixin;
@@ -40,6 +41,7 @@ public class PolyMapProviderImpl implements PolyMapProvider {
 
     @Override
     public void setPolyMap(PolyMap map) {
+        PolyMapCohorts.onMapChanged((ClientConnection)(Object)this, polyMap, map);
         polyMap = map;
     }
 }
@@ -0,0 +1,27 @@
+package io.github.theepicblock.polymc.mixins.block.implementations;
+
+import io.github.theepicblock.polymc.impl.misc.SectionPacketCache;
+import net.minecraft.block.BlockState;
+import net.minecraft.network.PacketByteBuf;
+import net.minecraft.world.chunk.ChunkSection;
+import net.minecraft.world.chunk.PalettedContainer;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Redirect;
+
+/**
+ * Routes the serialization of block states through {@link SectionPacketCache}.
+ * Biomes don't get polyd, so they're not cached.
+ */
+@Mixin(ChunkSection.class)
+public class ChunkSectionPacketCacheImplementation {
+    @Redirect(method = "toPacket", at = @At(value = "INVOKE", target = "Lnet/minecraft/world/chunk/PalettedContainer;writePacket(Lnet/minecraft/network/PacketByteBuf;)V"))
+    private void writeCachedPacket(PalettedContainer<BlockState> container, PacketByteBuf buf) {
+        SectionPacketCache.writePacket(container, buf);
+    }
+
+    @Redirect(method = "getPacketSize", at = @At(value = "INVOKE", target = "Lnet/minecraft/world/chunk/PalettedContainer;getPacketSize()I"))
+    private int getCachedPacketSize(PalettedContainer<BlockState> container) {
+        return SectionPacketCache.getPacketSize(container);
+    }
+}
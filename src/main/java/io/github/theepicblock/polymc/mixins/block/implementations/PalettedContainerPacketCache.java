@@ -0,0 +1,71 @@
+package io.github.theepicblock.polymc.mixins.block.implementations;
+
+import io.github.theepicblock.polymc.api.PolyMap;
+import io.github.theepicblock.polymc.impl.mixin.PacketCacheDuck;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectArrayMap;
+import net.minecraft.network.PacketByteBuf;
+import net.minecraft.world.chunk.PalettedContainer;
+import org.jetbrains.annotations.Nullable;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Unique;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
+
+/**
+ * Holds the cached packets for {@link io.github.theepicblock.polymc.impl.misc.SectionPacketCache} and clears them whenever the container is modified.
+ */
+@Mixin(PalettedContainer.class)
+public class PalettedContainerPacketCache implements PacketCacheDuck {
+    /**
+     * This map is never mutated after it's been published, a new one is created instead.
+     * That way a modification on another thread can't corrupt it whilst it's being read.
+     */
+    @Unique
+    private volatile @Nullable Reference2ObjectArrayMap<PolyMap, byte[]> cachedPackets;
+    @Unique
+    private volatile int modCount;
+
+    @Inject(method = "swap(ILjava/lang/Object;)Ljava/lang/Object;", at = @At("HEAD"))
+    private void invalidateOnSwap(int index, Object value, CallbackInfoReturnable<Object> cir) {
+        this.invalidateCache();
+    }
+
+    @Inject(method = "set(ILjava/lang/Object;)V", at = @At("HEAD"))
+    private void invalidateOnSet(int index, Object value, CallbackInfo ci) {
+        this.invalidateCache();
+    }
+
+    @Inject(method = "readPacket", at = @At("HEAD"))
+    private void invalidateOnRead(PacketByteBuf buf, CallbackInfo ci) {
+        this.invalidateCache();
+    }
+
+    @Unique
+    private void invalidateCache() {
+        this.modCount++;
+        this.cachedPackets = null;
+    }
+
+    @Override
+    public @Nullable byte[] polymc$getCachedPacket(PolyMap map) {
+        var packets = this.cachedPackets;
+        return packets == null ? null : packets.get(map);
+    }
+
+    @Override
+    public void polymc$putCachedPacket(PolyMap map, byte[] packet, int modCount) {
+        if (this.modCount != modCount) return;
+
+        var old = this.cachedPackets;
+        var packets = old == null ? new Reference2ObjectArrayMap<PolyMap, byte[]>(1) : new Reference2ObjectArrayMap<>(old);
+        packets.put(map, packet);
+        this.cachedPackets = packets;
+    }
+
+    @Override
+    public int polymc$getModCount() {
+        return this.modCount;
+    }
+}
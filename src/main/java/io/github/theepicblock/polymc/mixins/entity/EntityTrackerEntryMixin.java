@@ -1,19 +1,25 @@
 package io.github.theepicblock.polymc.mixins.entity;
 
 import io.github.theepicblock.polymc.PolyMc;
+import io.github.theepicblock.polymc.api.PolyMap;
 import io.github.theepicblock.polymc.api.misc.PolyMapProvider;
 import io.github.theepicblock.polymc.api.wizard.Wizard;
 import io.github.theepicblock.polymc.impl.misc.PolyMapMap;
 import io.github.theepicblock.polymc.impl.mixin.EntityTrackerEntryDuck;
 import io.github.theepicblock.polymc.impl.mixin.WizardTickerDuck;
+import io.github.theepicblock.polymc.impl.poly.entity.EntityWizard;
 import io.github.theepicblock.polymc.impl.poly.wizard.EntityWizardInfo;
 import io.github.theepicblock.polymc.impl.poly.wizard.PolyMapFilteredPlayerView;
-import io.github.theepicblock.polymc.impl.poly.wizard.SinglePlayerView;
+import io.github.theepicblock.polymc.impl.poly.wizard.PooledPlayerView;
+import io.github.theepicblock.polymc.impl.poly.wizard.WizardViewArena;
 import net.minecraft.entity.Entity;
 import net.minecraft.entity.EntityType;
 import net.minecraft.server.network.EntityTrackerEntry;
+import net.minecraft.server.network.PlayerAssociatedNetworkHandler;
 import net.minecraft.server.network.ServerPlayerEntity;
 import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.Vec3d;
+import org.jetbrains.annotations.Nullable;
 import org.spongepowered.asm.mixin.Final;
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.Shadow;
@@ -22,6 +28,8 @@ import org.spongepowered.asm.mixin.injection.At;
 import org.spongepowered.asm.mixin.injection.Inject;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
 
+import java.util.Set;
+
 @Mixin(EntityTrackerEntry.class)
 public class EntityTrackerEntryMixin implements EntityTrackerEntryDuck {
     @Shadow @Final private Entity entity;
@@ -43,27 +51,103 @@ public class EntityTrackerEntryMixin implements EntityTrackerEntryDuck {
         }
     });
 
+    /**
+     * Set by {@link EntityTrackerListenersMixin}, this is null if this entry wasn't created by an entity tracker
+     */
+    @Unique
+    private @Nullable Set<PlayerAssociatedNetworkHandler> listeners;
+
+    // The movement that was last passed to the wizards
+    @Unique private double lastX = Double.NaN;
+    @Unique private double lastY = Double.NaN;
+    @Unique private double lastZ = Double.NaN;
+    @Unique private float lastYaw;
+    @Unique private float lastPitch;
+    @Unique private float lastHeadYaw;
+    @Unique private @Nullable Vec3d lastVelocity;
+
     @Override
     public PolyMapMap<Wizard> polymc$getWizards() {
         return wizards;
     }
 
+    @Override
+    public void polymc$setListeners(Set<PlayerAssociatedNetworkHandler> listeners) {
+        this.listeners = listeners;
+    }
+
     @Inject(method = "tick", at = @At("HEAD"))
     private void onTick(CallbackInfo ci) {
-        // FIXME, use the list of listener inside ThreadedAnvilChunkStorage$EntityTracker
-        var allPlayers = PolyMapFilteredPlayerView.getAll(world, this.entity.getBlockPos());
-        wizards.forEach((polyMap, wizard) -> {
-            if (wizard == null) return;
-            var filteredView = new PolyMapFilteredPlayerView(allPlayers, polyMap);
+        if (wizards.isEmpty()) return;
+        var moved = polymc$checkMoved();
+
+        for (var entry : wizards.entrySet()) {
+            var wizard = entry.getValue();
+            if (wizard == null) continue;
+            var ticking = wizard.needsTicking();
+            if (!moved && !ticking) continue;
+
+            var filteredView = polymc$getView(entry.getKey());
             try {
-                wizard.onMove(filteredView); // TODO check if the entity actually moved
-                wizard.onTick(filteredView);
+                if (moved) wizard.onMove(filteredView);
+                if (ticking) wizard.onTick(filteredView);
             } catch (Throwable t) {
                 PolyMc.LOGGER.error("Error ticking entity wizard");
                 t.printStackTrace();
             }
             filteredView.sendBatched();
-        });
+        }
+    }
+
+    /**
+     * Vanilla calls this every few ticks to send the changed tracked data
+     */
+    @Inject(method = "syncEntityData", at = @At("HEAD"))
+    private void onSyncEntityData(CallbackInfo ci) {
+        if (wizards.isEmpty() || !this.entity.getDataTracker().isDirty()) return;
+
+        for (var entry : wizards.entrySet()) {
+            if (!(entry.getValue() instanceof EntityWizard<?> wizard)) continue;
+
+            var filteredView = polymc$getView(entry.getKey());
+            try {
+                wizard.onTrackedDataChanged(filteredView);
+            } catch (Throwable t) {
+                PolyMc.LOGGER.error("Error sending tracked data of entity wizard");
+                t.printStackTrace();
+            }
+            filteredView.sendBatched();
+        }
+    }
+
+    /**
+     * @return true if the position, rotation or velocity of the entity changed since the last time this was called
+     */
+    @Unique
+    private boolean polymc$checkMoved() {
+        var e = this.entity;
+        var velocity = e.getVelocity();
+        if (e.getX() == lastX && e.getY() == lastY && e.getZ() == lastZ &&
+                e.getYaw() == lastYaw && e.getPitch() == lastPitch && e.getHeadYaw() == lastHeadYaw &&
+                velocity.equals(lastVelocity)) {
+            return false;
+        }
+        lastX = e.getX();
+        lastY = e.getY();
+        lastZ = e.getZ();
+        lastYaw = e.getYaw();
+        lastPitch = e.getPitch();
+        lastHeadYaw = e.getHeadYaw();
+        lastVelocity = velocity;
+        return true;
+    }
+
+    @Unique
+    private PooledPlayerView polymc$getView(PolyMap polyMap) {
+        if (this.listeners == null) {
+            return WizardViewArena.get().players(PolyMapFilteredPlayerView.getAll(world, this.entity.getBlockPos()), polyMap);
+        }
+        return WizardViewArena.get().listeners(this.listeners, polyMap);
     }
 
     @Inject(method = "startTracking", at = @At("HEAD"))
@@ -72,7 +156,7 @@ public class EntityTrackerEntryMixin implements EntityTrackerEntryDuck {
         var wizard = wizards.get(polymap);
         if (wizard != null) {
             try {
-                var view = new SinglePlayerView(player);
+                var view = WizardViewArena.get().single(player, null);
                 wizard.addPlayer(view);
                 view.sendBatched();
             } catch (Throwable t) {
@@ -88,7 +172,7 @@ public class EntityTrackerEntryMixin implements EntityTrackerEntryDuck {
         var wizard = wizards.get(polymap);
         if (wizard != null) {
             try {
-                var view = new SinglePlayerView(player);
+                var view = WizardViewArena.get().single(player, null);
                 wizard.removePlayer(view);
                 view.sendBatched();
             } catch (Throwable t) {
@@ -0,0 +1,28 @@
+package io.github.theepicblock.polymc.mixins.entity;
+
+import io.github.theepicblock.polymc.impl.mixin.EntityTrackerEntryDuck;
+import net.minecraft.server.network.EntityTrackerEntry;
+import net.minecraft.server.network.PlayerAssociatedNetworkHandler;
+import net.minecraft.server.world.ThreadedAnvilChunkStorage;
+import org.spongepowered.asm.mixin.Final;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+import java.util.Set;
+
+/**
+ * Gives the {@link EntityTrackerEntry} access to the players tracking it, so entity wizards don't need to look up the chunk watchers
+ */
+@Mixin(ThreadedAnvilChunkStorage.EntityTracker.class)
+public class EntityTrackerListenersMixin {
+    @Shadow @Final EntityTrackerEntry entry;
+    @Shadow @Final private Set<PlayerAssociatedNetworkHandler> listeners;
+
+    @Inject(method = "<init>", at = @At("TAIL"))
+    private void shareListeners(CallbackInfo ci) {
+        ((EntityTrackerEntryDuck)this.entry).polymc$setListeners(this.listeners);
+    }
+}
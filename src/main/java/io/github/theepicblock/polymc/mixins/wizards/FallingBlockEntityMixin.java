@@ -1,21 +1,27 @@
 package io.github.theepicblock.polymc.mixins.wizards;
 
 import io.github.theepicblock.polymc.PolyMc;
+import io.github.theepicblock.polymc.api.PolyMap;
 import io.github.theepicblock.polymc.api.wizard.Wizard;
 import io.github.theepicblock.polymc.api.wizard.WizardView;
 import io.github.theepicblock.polymc.impl.misc.PolyMapMap;
 import io.github.theepicblock.polymc.impl.misc.WatchListener;
 import io.github.theepicblock.polymc.impl.poly.wizard.FallingBlockWizardInfo;
 import io.github.theepicblock.polymc.impl.poly.wizard.PolyMapFilteredPlayerView;
-import io.github.theepicblock.polymc.impl.poly.wizard.SinglePlayerView;
+import io.github.theepicblock.polymc.impl.poly.wizard.PooledPlayerView;
+import io.github.theepicblock.polymc.impl.poly.wizard.WizardViewArena;
+import io.github.theepicblock.polymc.mixins.TACSAccessor;
+import io.github.theepicblock.polymc.mixins.entity.EntityTrackerAccessor;
 import net.minecraft.block.BlockState;
 import net.minecraft.entity.Entity;
 import net.minecraft.entity.EntityType;
 import net.minecraft.entity.FallingBlockEntity;
 import net.minecraft.server.network.ServerPlayerEntity;
 import net.minecraft.server.world.ServerWorld;
+import net.minecraft.server.world.ThreadedAnvilChunkStorage;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.world.World;
+import org.jetbrains.annotations.Nullable;
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.Shadow;
 import org.spongepowered.asm.mixin.Unique;
@@ -65,14 +71,25 @@ public abstract class FallingBlockEntityMixin extends Entity implements WatchLis
 
     @Inject(method = "tick", at = @At("RETURN"))
     private void onTick(CallbackInfo ci) {
-        var allNearbyPlayers = PolyMapFilteredPlayerView.getAll((ServerWorld)this.getWorld(), this.getChunkPos());
-        wizards.forEach(((polyMap, wizard) -> {
-            if (wizard == null) return;
-            var filteredView = new PolyMapFilteredPlayerView(allNearbyPlayers, polyMap);
+        if (wizards.isEmpty()) return;
+        // The wizards are spawned in for the players tracking this entity, so those are the ones that should see it move
+        var tracker = ((TACSAccessor)((ServerWorld)this.getWorld()).getChunkManager().threadedAnvilChunkStorage).getEntityTrackers().get(this.getId());
+        for (var entry : wizards.entrySet()) {
+            var wizard = entry.getValue();
+            if (wizard == null) continue;
+            var filteredView = polymc$getView(tracker, entry.getKey());
             wizard.onMove(filteredView); // It is assumed that sand is constantly falling
             wizard.onTick(filteredView);
             filteredView.sendBatched();
-        }));
+        }
+    }
+
+    @Unique
+    private PooledPlayerView polymc$getView(@Nullable ThreadedAnvilChunkStorage.EntityTracker tracker, PolyMap polyMap) {
+        if (tracker == null) {
+            return WizardViewArena.get().players(PolyMapFilteredPlayerView.getAll((ServerWorld)this.getWorld(), this.getBlockPos()), polyMap);
+        }
+        return WizardViewArena.get().listeners(((EntityTrackerAccessor)tracker).getListeners(), polyMap);
     }
 
     @Override
@@ -104,7 +121,7 @@ public abstract class FallingBlockEntityMixin extends Entity implements WatchLis
     public void polymc$addPlayer(ServerPlayerEntity playerEntity) {
         wizards.forEach(((polyMap, wizard) -> {
             if (wizard == null) return;
-            var view = new SinglePlayerView(playerEntity);
+            var view = WizardViewArena.get().single(playerEntity, null);
             wizard.addPlayer(view);
             view.sendBatched();
         }));
@@ -114,7 +131,7 @@ public abstract class FallingBlockEntityMixin extends Entity implements WatchLis
     public void polymc$removePlayer(ServerPlayerEntity playerEntity) {
         wizards.forEach(((polyMap, wizard) -> {
             if (wizard == null) return;
-            var view = new SinglePlayerView(playerEntity);
+            var view = WizardViewArena.get().single(playerEntity, null);
             wizard.removePlayer(view);
             view.sendBatched();
         }));
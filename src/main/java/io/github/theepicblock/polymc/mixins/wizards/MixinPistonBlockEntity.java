@@ -4,14 +4,17 @@ import io.github.theepicblock.polymc.PolyMc;
 import io.github.theepicblock.polymc.api.misc.PolyMapProvider;
 import io.github.theepicblock.polymc.api.wizard.Wizard;
 import io.github.theepicblock.polymc.impl.misc.PolyMapMap;
+import io.github.theepicblock.polymc.impl.mixin.ChunkWatcherIndexDuck;
 import io.github.theepicblock.polymc.impl.poly.wizard.PistonWizardInfo;
 import io.github.theepicblock.polymc.impl.poly.wizard.PolyMapFilteredPlayerView;
+import io.github.theepicblock.polymc.impl.poly.wizard.WizardViewArena;
 import net.minecraft.block.BlockState;
 import net.minecraft.block.entity.BlockEntity;
 import net.minecraft.block.entity.BlockEntityType;
 import net.minecraft.block.entity.PistonBlockEntity;
 import net.minecraft.server.world.ServerWorld;
 import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
 import net.minecraft.world.World;
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.Shadow;
@@ -76,16 +79,18 @@ public abstract class MixinPistonBlockEntity extends BlockEntity {
     @Inject(method = "tick(Lnet/minecraft/world/World;Lnet/minecraft/util/math/BlockPos;Lnet/minecraft/block/BlockState;Lnet/minecraft/block/entity/PistonBlockEntity;)V", at = @At(value = "INVOKE", target = "Lnet/minecraft/block/entity/PistonBlockEntity;pushEntities(Lnet/minecraft/world/World;Lnet/minecraft/util/math/BlockPos;FLnet/minecraft/block/entity/PistonBlockEntity;)V"))
     private static void onTick(World world, BlockPos pos, BlockState state, PistonBlockEntity blockEntity, CallbackInfo ci) {
         MixinPistonBlockEntity be = (MixinPistonBlockEntity)(Object)blockEntity;
-        if (be == null) return;
+        if (be == null || be.wizards.isEmpty()) return;
 
-        var allNearbyPlayers = PolyMapFilteredPlayerView.getAll((ServerWorld)be.getWorld(), be.getPos());
-        be.wizards.forEach((polyMap, wizard) -> {
-            if (wizard == null) return;
-            var filteredView = new PolyMapFilteredPlayerView(allNearbyPlayers, polyMap);
+        var index = ((ChunkWatcherIndexDuck)be.getWorld()).polymc$getChunkWatcherIndex();
+        var chunkPos = ChunkPos.toLong(pos.getX() >> 4, pos.getZ() >> 4);
+        for (var entry : be.wizards.entrySet()) {
+            var wizard = entry.getValue();
+            if (wizard == null) continue;
+            var filteredView = WizardViewArena.get().players(index.getWatchers(chunkPos, entry.getKey()), null);
             wizard.onMove(filteredView); // Pistons move constantly
             wizard.onTick(filteredView);
             filteredView.sendBatched();
-        });
+        }
     }
 
     @Inject(method = "markRemoved()V", at = @At("HEAD"))
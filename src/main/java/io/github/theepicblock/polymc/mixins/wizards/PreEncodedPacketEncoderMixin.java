@@ -0,0 +1,23 @@
+package io.github.theepicblock.polymc.mixins.wizards;
+
+import io.github.theepicblock.polymc.impl.poly.wizard.PreEncodedPacket;
+import net.minecraft.network.handler.PacketEncoder;
+import net.minecraft.network.packet.Packet;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.ModifyArg;
+
+/**
+ * A {@link PreEncodedPacket} already writes the contents of the packet it wraps, it just needs to be given the same id.
+ */
+@Mixin(PacketEncoder.class)
+public class PreEncodedPacketEncoderMixin {
+    @ModifyArg(method = "encode(Lio/netty/channel/ChannelHandlerContext;Lnet/minecraft/network/packet/Packet;Lio/netty/buffer/ByteBuf;)V",
+            at = @At(value = "INVOKE", target = "Lnet/minecraft/network/NetworkState$PacketHandler;getId(Lnet/minecraft/network/packet/Packet;)I"))
+    private Packet<?> useWrappedId(Packet<?> packet) {
+        if (packet instanceof PreEncodedPacket preEncoded) {
+            return preEncoded.getPacket();
+        }
+        return packet;
+    }
+}
@@ -0,0 +1,42 @@
+package io.github.theepicblock.polymc.mixins.wizards.block;
+
+import io.github.theepicblock.polymc.impl.mixin.WizardSectionDuck;
+import io.github.theepicblock.polymc.impl.poly.wizard.WizardSectionIndex;
+import net.minecraft.block.BlockState;
+import net.minecraft.world.chunk.ChunkSection;
+import org.jetbrains.annotations.Nullable;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Unique;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
+
+/**
+ * Keeps the {@link WizardSectionIndex} of a section up-to-date.
+ * Sections that were never used to create wizards (such as ones that are still being generated) don't have an index and aren't affected.
+ */
+@Mixin(ChunkSection.class)
+public class ChunkSectionMixin implements WizardSectionDuck {
+    @Unique
+    private @Nullable WizardSectionIndex polymc$wizardIndex;
+
+    @Override
+    public WizardSectionIndex polymc$getWizardIndex() {
+        if (polymc$wizardIndex == null) {
+            polymc$wizardIndex = new WizardSectionIndex();
+        }
+        return polymc$wizardIndex;
+    }
+
+    @Override
+    public @Nullable WizardSectionIndex polymc$getWizardIndexIfPresent() {
+        return polymc$wizardIndex;
+    }
+
+    @Inject(method = "setBlockState(IIILnet/minecraft/block/BlockState;Z)Lnet/minecraft/block/BlockState;", at = @At("RETURN"))
+    private void onSetBlockState(int x, int y, int z, BlockState state, boolean lock, CallbackInfoReturnable<BlockState> cir) {
+        if (polymc$wizardIndex != null) {
+            polymc$wizardIndex.onSet(WizardSectionIndex.toIndex(x, y, z), state);
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package io.github.theepicblock.polymc.mixins.wizards.block;
 
 import io.github.theepicblock.polymc.impl.misc.WatchListener;
+import io.github.theepicblock.polymc.impl.mixin.ChunkWatcherIndexDuck;
 import net.minecraft.network.packet.s2c.play.ChunkDataS2CPacket;
 import net.minecraft.server.network.ChunkDataSender;
 import net.minecraft.server.network.ServerPlayNetworkHandler;
@@ -25,6 +26,14 @@ public abstract class WatchProviderMixin {
         ((WatchListener)chunk).polymc$addPlayer(handler.player);
     }
 
+    /**
+     * Always keep the index in sync, even if no unload packet ends up being sent
+     */
+    @Inject(method = "unload", at = @At("HEAD"))
+    private void onUnload(ServerPlayerEntity player, ChunkPos pos, CallbackInfo ci) {
+        ((ChunkWatcherIndexDuck)player.getServerWorld()).polymc$getChunkWatcherIndex().removeWatcher(pos, player);
+    }
+
     @Inject(method = "unload",
             at = @At(value = "INVOKE", target = "Lnet/minecraft/server/network/ServerPlayNetworkHandler;sendPacket(Lnet/minecraft/network/packet/Packet;)V"))
     private void onSendUnloadPacket(ServerPlayerEntity player, ChunkPos pos, CallbackInfo ci) {
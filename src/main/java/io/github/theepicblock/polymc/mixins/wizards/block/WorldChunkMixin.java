@@ -9,17 +9,25 @@ import io.github.theepicblock.polymc.api.wizard.WizardView;
 import io.github.theepicblock.polymc.impl.Util;
 import io.github.theepicblock.polymc.impl.misc.PolyMapMap;
 import io.github.theepicblock.polymc.impl.misc.WatchListener;
+import io.github.theepicblock.polymc.impl.mixin.ChunkWatcherIndexDuck;
+import io.github.theepicblock.polymc.impl.mixin.WizardChunkDuck;
+import io.github.theepicblock.polymc.impl.mixin.WizardMaterializationDuck;
+import io.github.theepicblock.polymc.impl.mixin.WizardSectionDuck;
 import io.github.theepicblock.polymc.impl.mixin.WizardTickerDuck;
 import io.github.theepicblock.polymc.impl.poly.wizard.CachedPolyMapFilteredPlayerView;
 import io.github.theepicblock.polymc.impl.poly.wizard.PlacedWizardInfo;
+import io.github.theepicblock.polymc.impl.poly.wizard.PlayerPacketBuffer;
 import io.github.theepicblock.polymc.impl.poly.wizard.PolyMapFilteredPlayerView;
-import io.github.theepicblock.polymc.impl.poly.wizard.SinglePlayerView;
+import io.github.theepicblock.polymc.impl.poly.wizard.WizardLod;
+import io.github.theepicblock.polymc.impl.poly.wizard.WizardMaterializationQueue;
+import io.github.theepicblock.polymc.impl.poly.wizard.WizardViewArena;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Reference2IntArrayMap;
 import net.minecraft.block.BlockState;
 import net.minecraft.registry.Registry;
 import net.minecraft.server.network.ServerPlayerEntity;
 import net.minecraft.server.world.ServerWorld;
-import net.minecraft.util.collection.PackedIntegerArray;
-import net.minecraft.util.collection.PaletteStorage;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.ChunkPos;
 import net.minecraft.world.HeightLimitView;
@@ -37,15 +45,19 @@ import org.spongepowered.asm.mixin.injection.At;
 import org.spongepowered.asm.mixin.injection.Inject;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
 
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
 
 @SuppressWarnings("unchecked")
 @Mixin(WorldChunk.class)
-public abstract class WorldChunkMixin extends Chunk implements WatchListener, WizardView {
+public abstract class WorldChunkMixin extends Chunk implements WatchListener, WizardView, WizardChunkDuck {
     @Unique
-    private final PolyMapMap<@NotNull Map<@NotNull BlockPos,@NotNull Wizard>> wizards = new PolyMapMap<>(this::createWizardsForChunk);
+    private final PolyMapMap<@NotNull Long2ObjectMap<@NotNull Wizard>> wizards = new PolyMapMap<>(this::createWizardsForChunk);
+    /**
+     * The largest render distance of the wizard blocks in this chunk, per map. Only valid for {@link #renderDistanceDefault}
+     */
+    @Unique
+    private final Reference2IntArrayMap<PolyMap> renderDistances = new Reference2IntArrayMap<>(1);
+    @Unique
+    private int renderDistanceDefault;
 
     @Shadow @Final World world;
 
@@ -56,8 +68,8 @@ public abstract class WorldChunkMixin extends Chunk implements WatchListener, Wi
     @Shadow public abstract World getWorld();
 
     @Unique
-    private Map<BlockPos,Wizard> createWizardsForChunk(PolyMap map) {
-        Map<BlockPos,Wizard> ret = new HashMap<>();
+    private Long2ObjectMap<Wizard> createWizardsForChunk(PolyMap map) {
+        Long2ObjectMap<Wizard> ret = new Long2ObjectOpenHashMap<>();
         if (!(this.world instanceof ServerWorld))
             return ret; //Wizards are only passed ServerWorlds, so we can't create any wizards here.
         if (!map.hasBlockWizards())
@@ -67,14 +79,12 @@ public abstract class WorldChunkMixin extends Chunk implements WatchListener, Wi
         int sectionBottomY = this.world.getBottomY();
 
         for (ChunkSection section : this.sectionArray) {
-
             if (section != null) {
-                PalettedContainer<BlockState> container = section.getBlockStateContainer();
-
-                var data = ((PalettedContainerAccessor<BlockState>)container).getData();
-                var palette = data.palette();
-                var paletteData = data.storage();
-                processWizards(map, palette, paletteData, sectionBottomY, ret);
+                // Only the blocks in the index need to be looked at, the section is only scanned if there's no index yet
+                var positions = ((WizardSectionDuck)section).polymc$getWizardIndex().get(map, section);
+                for (var iterator = positions.iterator(); iterator.hasNext();) {
+                    processWizard(map, section, iterator.nextShort(), sectionBottomY, ret);
+                }
             }
 
             sectionBottomY += 16;
@@ -84,96 +94,14 @@ public abstract class WorldChunkMixin extends Chunk implements WatchListener, Wi
     }
 
     @Unique
-    private void processWizards(PolyMap polyMap, Palette<BlockState> palette, PaletteStorage data, int yOffset, Map<@NotNull BlockPos,@NotNull Wizard> wizardMap) {
-        if (data.getSize() == 0) return;
-
-        if (palette.getSize() < 256) {
-            // The palette contains all block states present in the chunk
-            var idsWithPolys = new BlockPoly[palette.getSize()];
-            for (int i = 0; i < palette.getSize(); i++) {
-                var state = palette.get(i);
-                var poly = polyMap.getBlockPoly(state.getBlock());
-                if (poly != null && poly.hasWizard()) {
-                    idsWithPolys[i] = poly;
-                }
-            }
-
-            if (data instanceof PackedIntegerArray) {
-                // Fast way of iterating the packed data with an index
-                int i = 0;
-
-                var elementBits = data.getElementBits();
-                var elementsPerLong = (char)(64 / elementBits);
-                var maxValue = (1L << elementBits) - 1L;
-                var size = data.getSize();
-
-                data:
-                for (long l : data.getData()) {
-                    for (int j = 0; j < elementsPerLong; ++j) {
-                        var blockIndex = (int)(l & maxValue);
-                        var poly = idsWithPolys[blockIndex];
-                        if (poly != null) {
-                            processBlock(polyMap, poly, i, yOffset, wizardMap);
-                        }
-
-                        l >>= elementBits;
-                        ++i;
-                        if (i >= size) {
-                            break data;
-                        }
-                    }
-                }
-            } else {
-                for (int i = 0; i < data.getSize(); i++) {
-                    var blockIndex = data.get(i);
-                    var poly = idsWithPolys[blockIndex];
-                    if (poly != null) {
-                        processBlock(polyMap, poly, i, yOffset, wizardMap);
-                    }
-                }
-            }
-        } else {
-            // It's not worth iterating the palette, instead iterate the blocks in the data
-            if (data instanceof PackedIntegerArray) {
-                // Fast way of iterating the packed data with an index
-                int i = 0;
-
-                var elementBits = data.getElementBits();
-                var elementsPerLong = (char)(64 / elementBits);
-                var maxValue = (1L << elementBits) - 1L;
-                var size = data.getSize();
-
-                data:
-                for (long l : data.getData()) {
-                    for (int j = 0; j < elementsPerLong; ++j) {
-                        var blockIndex = (int)(l & maxValue);
-                        var poly = polyMap.getBlockPoly(palette.get(blockIndex).getBlock());
-                        if (poly != null && poly.hasWizard()) {
-                            processBlock(polyMap, poly, i, yOffset, wizardMap);
-                        }
-
-                        l >>= elementBits;
-                        ++i;
-                        if (i >= size) {
-                            break data;
-                        }
-                    }
-                }
-            } else {
-                for (int i = 0; i < data.getSize(); i++) {
-                    var blockIndex = data.get(i);
-                    var poly = polyMap.getBlockPoly(palette.get(blockIndex).getBlock());
-                    if (poly != null && poly.hasWizard()) {
-                        processBlock(polyMap, poly, i, yOffset, wizardMap);
-                    }
-                }
-            }
+    private void processWizard(@NotNull PolyMap map, ChunkSection section, int index, int yOffset, @NotNull Long2ObjectMap<@NotNull Wizard> wizardMap) {
+        BlockPos localPos = Util.fromPalettedContainerIndex(index);
+        BlockPoly poly = map.getBlockPoly(section.getBlockState(localPos.getX(), localPos.getY(), localPos.getZ()).getBlock());
+        if (poly == null || !poly.hasWizard()) {
+            PolyMc.LOGGER.warn("The wizard index of chunk "+this.pos+" is out of date at "+localPos);
+            return;
         }
-    }
-
-    @Unique
-    private void processBlock(@NotNull PolyMap map, @NotNull BlockPoly poly, int index, int yOffset, @NotNull Map<@NotNull BlockPos,@NotNull Wizard> wizardMap) {
-        BlockPos pos = Util.fromPalettedContainerIndex(index).add(this.pos.x * 16, yOffset, this.pos.z * 16);
+        BlockPos pos = localPos.add(this.pos.x * 16, yOffset, this.pos.z * 16);
         try {
             var wiz = poly.createWizard(new PlacedWizardInfo(pos, (ServerWorld)this.world));
             if (wiz == null) {
@@ -181,7 +109,7 @@ public abstract class WorldChunkMixin extends Chunk implements WatchListener, Wi
                 return;
             }
             ((WizardTickerDuck)this.world).polymc$addBlockTicker(map, this.getPos(), wiz);
-            wizardMap.put(pos, wiz);
+            wizardMap.put(pos.asLong(), wiz);
         } catch (Throwable t) {
             PolyMc.LOGGER.warn("Failed to create block wizard for block at "+pos+" | "+poly);
         }
@@ -189,34 +117,106 @@ public abstract class WorldChunkMixin extends Chunk implements WatchListener, Wi
 
     @Override
     public void polymc$addPlayer(ServerPlayerEntity playerEntity) {
+        var index = ((ChunkWatcherIndexDuck)this.world).polymc$getChunkWatcherIndex();
+        if (WizardLod.isOutOfRange((WorldChunk)(Object)this, playerEntity)) {
+            // The player is too far away to see the wizards, they'll be spawned once the player comes closer
+            index.addCulledWatcher(this.getPos(), playerEntity);
+            return;
+        }
+        if (WizardMaterializationQueue.isEnabled()) {
+            // Pending players don't receive any wizard packets until the queue has spawned the wizards for them
+            index.addPendingWatcher(this.getPos(), playerEntity);
+            ((WizardMaterializationDuck)this.world).polymc$getMaterializationQueue().enqueue(this.getPos(), playerEntity);
+        } else {
+            index.addWatcher(this.getPos(), playerEntity);
+            polymc$spawnWizardsFor(playerEntity);
+        }
+    }
+
+    @Override
+    public void polymc$spawnWizardsFor(ServerPlayerEntity playerEntity) {
         PolyMap map = PolyMapProvider.getPolyMap(playerEntity);
-        this.wizards.get(map).values().forEach((wizard) -> {
+        // All wizards in this chunk are spawned in using a single bundle
+        var buffer = new PlayerPacketBuffer();
+        var playerView = WizardViewArena.get().single(playerEntity, buffer);
+        for (var wizard : this.wizards.get(map).values()) {
             try {
-                var playerView = new SinglePlayerView(playerEntity);
                 wizard.addPlayer(playerView);
-                playerView.sendBatched();
             } catch (Throwable t) {
                 PolyMc.LOGGER.error("Failed to add player to wizard "+wizard);
             }
-        });
+        }
+        playerView.sendBatched();
+        buffer.flush();
     }
 
     @Override
     public void polymc$removePlayer(ServerPlayerEntity playerEntity) {
+        var index = ((ChunkWatcherIndexDuck)this.world).polymc$getChunkWatcherIndex();
+        var culled = index.isCulled(this.getPos().toLong(), playerEntity);
+        var pending = index.isPending(this.getPos().toLong(), playerEntity);
+        index.removeWatcher(this.getPos(), playerEntity);
+        if (pending) {
+            ((WizardMaterializationDuck)this.world).polymc$getMaterializationQueue().cancel(this.getPos(), playerEntity);
+        }
+        if (culled || pending) {
+            return; // The player never got any of the wizards
+        }
+        polymc$despawnWizardsFor(playerEntity);
+    }
+
+    @Override
+    public void polymc$despawnWizardsFor(ServerPlayerEntity playerEntity) {
         PolyMap map = PolyMapProvider.getPolyMap(playerEntity);
-        this.wizards.get(map).values().forEach((wizard) -> {
+        var playerView = WizardViewArena.get().single(playerEntity, null);
+        for (var wizard : this.wizards.get(map).values()) {
             try {
-                var playerView = new SinglePlayerView(playerEntity);
                 wizard.removePlayer(playerView);
-                playerView.sendBatched();
             } catch (Throwable t) {
                 PolyMc.LOGGER.error("Failed to remove player from wizard "+wizard);
             }
-        });
+        }
+        playerView.sendBatched();
+    }
+
+    @Override
+    public int polymc$getRenderDistance(PolyMap map, int defaultDistance) {
+        if (defaultDistance != this.renderDistanceDefault) {
+            this.renderDistances.clear();
+            this.renderDistanceDefault = defaultDistance;
+        }
+        if (this.renderDistances.containsKey(map)) return this.renderDistances.getInt(map);
+        var distance = computeRenderDistance(map, defaultDistance);
+        this.renderDistances.put(map, distance);
+        return distance;
+    }
+
+    /**
+     * Looks at the polys of the wizard blocks in the section indices, so this doesn't need to create any wizards
+     */
+    @Unique
+    private int computeRenderDistance(PolyMap map, int defaultDistance) {
+        if (!(this.world instanceof ServerWorld) || !map.hasBlockWizards()) return defaultDistance;
+
+        var distance = Integer.MIN_VALUE;
+        for (ChunkSection section : this.sectionArray) {
+            if (section == null) continue;
+            var positions = ((WizardSectionDuck)section).polymc$getWizardIndex().get(map, section);
+            for (var iterator = positions.iterator(); iterator.hasNext();) {
+                int index = iterator.nextShort();
+                var poly = map.getBlockPoly(section.getBlockState(index & 15, index >> 8, (index >> 4) & 15).getBlock());
+                if (poly != null && poly.hasWizard()) {
+                    distance = Math.max(distance, poly.getWizardRenderDistance(defaultDistance));
+                }
+            }
+        }
+        return distance == Integer.MIN_VALUE ? defaultDistance : distance;
     }
 
     @Override
     public void polymc$removeAllPlayers() {
+        ((ChunkWatcherIndexDuck)this.world).polymc$getChunkWatcherIndex().removeChunk(this.getPos());
+        ((WizardMaterializationDuck)this.world).polymc$getMaterializationQueue().cancelChunk(this.getPos());
         var allPlayers = PolyMapFilteredPlayerView.getAll((ServerWorld)world, this.getPos());
         this.wizards.forEach((polyMap, wizardMap) -> {
             if (!wizardMap.isEmpty()) {
@@ -237,17 +237,20 @@ public abstract class WorldChunkMixin extends Chunk implements WatchListener, Wi
 
     @Inject(method = "setBlockState", at = @At("TAIL"))
     private void onSet(BlockPos pos, BlockState state, boolean moved, CallbackInfoReturnable<BlockState> cir) {
-        List<ServerPlayerEntity> allPlayers = null;
+        if (!this.renderDistances.isEmpty()) {
+            // The render distance is only affected by wizard blocks
+            var oldState = cir.getReturnValue();
+            this.renderDistances.keySet().removeIf(polyMap -> hasWizard(polyMap, state) || (oldState != null && hasWizard(polyMap, oldState)));
+        }
+
+        var index = ((ChunkWatcherIndexDuck)this.world).polymc$getChunkWatcherIndex();
         for (var entry : wizards.entrySet()) {
             var polyMap = entry.getKey();
             var wizardMap = entry.getValue();
 
-            Wizard oldWiz = wizardMap.remove(pos);
+            Wizard oldWiz = wizardMap.remove(pos.asLong());
             if (oldWiz != null) {
-                if (allPlayers == null) {
-                    allPlayers = PolyMapFilteredPlayerView.getAll((ServerWorld)this.getWorld(), this.getPos());
-                }
-                var view = new PolyMapFilteredPlayerView(allPlayers, polyMap);
+                var view = WizardViewArena.get().players(index.getWatchers(this.getPos().toLong(), polyMap), null);
                 oldWiz.onRemove(view);
                 view.sendBatched();
                 ((WizardTickerDuck)this.world).polymc$removeBlockTicker(polyMap, this.getPos(), oldWiz);
@@ -258,12 +261,9 @@ public abstract class WorldChunkMixin extends Chunk implements WatchListener, Wi
                 try {
                     BlockPos ipos = pos.toImmutable();
                     Wizard wiz = poly.createWizard(new PlacedWizardInfo(ipos, (ServerWorld)this.world));
-                    wizardMap.put(ipos, wiz);
-                    if (allPlayers == null) {
-                        allPlayers = PolyMapFilteredPlayerView.getAll((ServerWorld)this.getWorld(), this.getPos());
-                    }
+                    wizardMap.put(ipos.asLong(), wiz);
 
-                    var filteredView = new PolyMapFilteredPlayerView(allPlayers, polyMap);
+                    var filteredView = WizardViewArena.get().players(index.getWatchers(this.getPos().toLong(), polyMap), null);
                     wiz.addPlayer(filteredView);
                     ((WizardTickerDuck)this.world).polymc$addBlockTicker(polyMap, this.getPos(), wiz);
                 } catch (Throwable t) {
@@ -274,11 +274,17 @@ public abstract class WorldChunkMixin extends Chunk implements WatchListener, Wi
         }
     }
 
+    @Unique
+    private static boolean hasWizard(PolyMap map, BlockState state) {
+        var poly = map.getBlockPoly(state.getBlock());
+        return poly != null && poly.hasWizard();
+    }
+
     @Override
     public PolyMapMap<Wizard> getWizards(BlockPos pos) {
         PolyMapMap<Wizard> ret = new PolyMapMap<>(null);
         this.wizards.forEach((polyMap, wizardMap) -> {
-            Wizard wizard = wizardMap.get(pos);
+            Wizard wizard = wizardMap.get(pos.asLong());
             if (wizard != null) ret.put(polyMap, wizard);
         });
         return ret;
@@ -287,14 +293,14 @@ public abstract class WorldChunkMixin extends Chunk implements WatchListener, Wi
     @Override
     public PolyMapMap<Wizard> removeWizards(BlockPos pos, boolean move) {
         PolyMapMap<Wizard> ret = new PolyMapMap<>(null);
-        var allPlayers = move ? null : PolyMapFilteredPlayerView.getAll((ServerWorld)this.getWorld(), this.getPos());
+        var index = ((ChunkWatcherIndexDuck)this.world).polymc$getChunkWatcherIndex();
 
         this.wizards.forEach((polyMap, wizardMap) -> {
-            Wizard wizard = wizardMap.remove(pos);
+            Wizard wizard = wizardMap.remove(pos.asLong());
             if (wizard != null) {
                 try {
                     if (!move) {
-                        var view = new PolyMapFilteredPlayerView(allPlayers, polyMap);
+                        var view = new CachedPolyMapFilteredPlayerView(index.getWatchers(this.getPos().toLong(), polyMap), null);
                         wizard.onRemove(view);
                         view.sendBatched();
                     }
@@ -57,6 +57,7 @@ public class Testmod implements ModInitializer {
     public static final Block TEST_IRON_TRAP_DOOR = new TrapdoorBlock(TEST_IRON_BLOCKSET, FabricBlockSettings.copyOf(Blocks.OAK_TRAPDOOR));
     public static final Block TEST_BLOCK_GLOWING = new Block(FabricBlockSettings.create().luminance(9));
     public static final Block TEST_BLOCK_WIZARD = new ColoredFallingBlock(new ColorCode(0), FabricBlockSettings.create());
+    public static final Block TEST_BLOCK_IDLE_WIZARD = new Block(FabricBlockSettings.create());
 
     public static final EntityType<? extends LivingEntity> TEST_ENTITY_DIRECT = FabricEntityTypeBuilder.create().entityFactory(CreeperEntity::new).trackRangeChunks(4).dimensions(EntityDimensions.fixed(0.5f, 0.5f)).build();
     public static final EntityType<? extends LivingEntity> TEST_ENTITY_EXTEND_DIRECT = FabricEntityTypeBuilder.create().entityFactory(TestExtendDirectEntity::new).trackRangeChunks(4).dimensions(EntityDimensions.fixed(0.5f, 0.5f)).build();
@@ -88,6 +89,7 @@ public class Testmod implements ModInitializer {
         registerBlock(id("test_iron_trapdoor"), TEST_IRON_TRAP_DOOR);
         registerBlock(id("test_block_glowing"), TEST_BLOCK_GLOWING);
         registerBlock(id("test_block_wizard"), TEST_BLOCK_WIZARD);
+        registerBlock(id("test_block_idle_wizard"), TEST_BLOCK_IDLE_WIZARD);
 
         Registry.register(Registries.ENTITY_TYPE, id("test_entity_direct"), TEST_ENTITY_DIRECT);
         FabricDefaultAttributeRegistry.register(TEST_ENTITY_DIRECT, CreeperEntity.createCreeperAttributes());
@@ -0,0 +1,201 @@
+package nl.theepicblock.polymc.testmod.automated;
+
+import io.github.theepicblock.polymc.api.misc.PolyMapProvider;
+import io.github.theepicblock.polymc.impl.NOPPolyMap;
+import io.github.theepicblock.polymc.impl.misc.PolyMapCohorts;
+import io.github.theepicblock.polymc.impl.misc.WatchListener;
+import io.github.theepicblock.polymc.impl.mixin.ChunkWatcherIndexDuck;
+import io.github.theepicblock.polymc.impl.poly.wizard.ChunkWatcherIndex;
+import io.github.theepicblock.polymc.impl.poly.wizard.PlacedWizardInfo;
+import io.github.theepicblock.polymc.impl.poly.wizard.WizardTickerRegistry;
+import net.fabricmc.fabric.api.gametest.v1.FabricGameTest;
+import net.minecraft.entity.Entity;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.test.GameTest;
+import net.minecraft.test.TestContext;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.math.Vec3d;
+import net.minecraft.world.World;
+import nl.theepicblock.polymc.testmod.poly.TestWizardBlockPoly;
+
+import java.util.List;
+
+public class ChunkWatcherIndexTests implements FabricGameTest {
+    @GameTest(templateName = EMPTY_STRUCTURE)
+    public void watchAndUnwatch(TestContext ctx) {
+        var packetCtx = new PacketTester(ctx);
+        var player = packetCtx.playerEntity;
+        var pos = watchTestChunk(ctx, packetCtx);
+        var index = getIndex(ctx.getWorld());
+
+        ((WatchListener)ctx.getWorld().getWorldChunk(ctx.getAbsolutePos(BlockPos.ORIGIN))).polymc$removePlayer(player);
+        ctx.assertFalse(index.getWatchers(pos).contains(player), "Player should've been removed from the index");
+        ctx.assertTrue(index.getWatchedChunks(player).isEmpty(), "Player shouldn't be watching any chunks");
+
+        packetCtx.close();
+        ctx.complete();
+    }
+
+    @GameTest(templateName = EMPTY_STRUCTURE)
+    public void teleport(TestContext ctx) {
+        var packetCtx = new PacketTester(ctx);
+        var player = packetCtx.playerEntity;
+        var world = ctx.getWorld();
+        var pos = watchTestChunk(ctx, packetCtx);
+
+        // Teleport further than any view distance, so the chunk gets unloaded for the player
+        var destination = ctx.getAbsolute(Vec3d.ZERO).add(1000, 0, 1000);
+        player.teleport(world, destination.x, destination.y, destination.z, 0, 0);
+        world.getChunkManager().threadedAnvilChunkStorage.updatePosition(player);
+
+        ctx.assertFalse(getIndex(world).getWatchers(pos).contains(player), "Player teleported away, but is still watching the chunk");
+        ctx.assertFalse(getIndex(world).getWatchedChunks(player).contains(pos.toLong()), "Player teleported away, but is still watching the chunk");
+
+        packetCtx.close();
+        ctx.complete();
+    }
+
+    @GameTest(templateName = EMPTY_STRUCTURE)
+    public void changeDimension(TestContext ctx) {
+        var packetCtx = new PacketTester(ctx);
+        var player = packetCtx.playerEntity;
+        var world = ctx.getWorld();
+        var pos = watchTestChunk(ctx, packetCtx);
+
+        var nether = world.getServer().getWorld(World.NETHER);
+        TestUtil.assertNonNull(nether, "The nether should exist");
+        player.teleport(nether, 0, 100, 0, 0, 0);
+
+        ctx.assertFalse(getIndex(world).getWatchers(pos).contains(player), "Player changed dimension, but is still watching the chunk");
+        ctx.assertTrue(getIndex(world).getWatchedChunks(player).isEmpty(), "Player changed dimension, but the old world still has chunks for it");
+
+        packetCtx.close();
+        ctx.complete();
+    }
+
+    /**
+     * Players are grouped by the map they use, both in the cohorts and in the watchers of a chunk
+     */
+    @GameTest(templateName = EMPTY_STRUCTURE)
+    public void watchersPerMap(TestContext ctx) {
+        var first = new PacketTester(ctx);
+        var second = new PacketTester(ctx);
+        var world = ctx.getWorld();
+        var map = PolyMapProvider.getPolyMap(first.playerEntity);
+        var otherMap = new NOPPolyMap();
+        second.setMap(otherMap);
+        ctx.assertTrue(PolyMapCohorts.getPlayers(otherMap).equals(List.of(second.playerEntity)), "The second player should've moved to the cohort of its new map");
+        ctx.assertFalse(PolyMapCohorts.getPlayers(map).contains(second.playerEntity), "The second player should've left the cohort of its old map");
+        ctx.assertFalse(PolyMapCohorts.isSoleCohort(map), "Not everyone uses the same map anymore");
+
+        var pos = watchTestChunk(ctx, first);
+        watchTestChunk(ctx, second);
+        var index = getIndex(world);
+        ctx.assertTrue(index.getWatchers(pos.toLong(), map).contains(first.playerEntity), "The first player should be watching with its map");
+        ctx.assertFalse(index.getWatchers(pos.toLong(), map).contains(second.playerEntity), "The second player uses another map");
+        ctx.assertTrue(index.getWatchers(pos.toLong(), otherMap).equals(List.of(second.playerEntity)), "Only the second player uses the other map");
+
+        world.removePlayer(second.playerEntity, Entity.RemovalReason.UNLOADED_WITH_PLAYER);
+        ctx.assertTrue(PolyMapCohorts.getPlayers(otherMap).isEmpty(), "Players should leave their cohort once they're removed from the world");
+        ctx.assertTrue(index.getWatchers(pos.toLong(), otherMap).isEmpty(), "Nobody using the other map is watching anymore");
+
+        first.close();
+        second.close();
+        ctx.complete();
+    }
+
+    @GameTest(templateName = EMPTY_STRUCTURE)
+    public void disconnect(TestContext ctx) {
+        var packetCtx = new PacketTester(ctx);
+        var player = packetCtx.playerEntity;
+        var world = ctx.getWorld();
+        var pos = watchTestChunk(ctx, packetCtx);
+
+        // This is what the player manager does when a player disconnects
+        world.removePlayer(player, Entity.RemovalReason.UNLOADED_WITH_PLAYER);
+
+        ctx.assertFalse(getIndex(world).getWatchers(pos).contains(player), "Player disconnected, but is still watching the chunk");
+        ctx.assertTrue(getIndex(world).getWatchedChunks(player).isEmpty(), "Player disconnected, but is still in the index");
+
+        packetCtx.close();
+        ctx.complete();
+    }
+
+    @GameTest(templateName = EMPTY_STRUCTURE)
+    public void cullAndUncull(TestContext ctx) {
+        var packetCtx = new PacketTester(ctx);
+        var player = packetCtx.playerEntity;
+        var pos = watchTestChunk(ctx, packetCtx);
+        var index = getIndex(ctx.getWorld());
+
+        ctx.assertTrue(index.cull(pos.toLong(), player), "Player should've been culled");
+        ctx.assertFalse(index.getWatchers(pos).contains(player), "Culled players shouldn't be returned as watchers");
+        ctx.assertTrue(index.getWatchedChunks(player).contains(pos.toLong()), "Culled players are still watching the chunk");
+
+        ctx.assertTrue(index.uncull(pos.toLong(), player), "Player should've been unculled");
+        ctx.assertTrue(index.getWatchers(pos).contains(player), "Player should be a watcher again");
+
+        index.cull(pos.toLong(), player);
+        index.removeChunk(pos);
+        ctx.assertFalse(index.isCulled(pos.toLong(), player), "Unloading the chunk should forget culled players");
+        ctx.assertTrue(index.getWatchedChunks(player).isEmpty(), "Unloading the chunk should forget culled players");
+
+        packetCtx.close();
+        ctx.complete();
+    }
+
+    /**
+     * Wizards should only be ticked while a player is watching their chunk
+     */
+    @GameTest(templateName = EMPTY_STRUCTURE)
+    public void activeTickers(TestContext ctx) {
+        var packetCtx = new PacketTester(ctx);
+        var player = packetCtx.playerEntity;
+        var map = PolyMapProvider.getPolyMap(player);
+        var registry = new WizardTickerRegistry();
+        var index = new ChunkWatcherIndex(registry);
+        var pos = new ChunkPos(ctx.getAbsolutePos(BlockPos.ORIGIN));
+        var wizard = new TestWizardBlockPoly.TestWizard(new PlacedWizardInfo(ctx.getAbsolutePos(BlockPos.ORIGIN), ctx.getWorld()));
+
+        registry.addBlockTicker(map, pos, wizard);
+        ctx.assertTrue(registry.getActiveChunkCount() == 0 && registry.getDormantChunkCount() == 1, "Nobody is watching the chunk yet");
+        ctx.assertTrue(registry.publish().blocks().isEmpty(), "Dormant wizards shouldn't be in the snapshot");
+
+        index.addWatcher(pos, player);
+        ctx.assertTrue(registry.getActiveBlockTickers().get(map).get(pos).contains(wizard), "The chunk should be active once it's watched");
+        ctx.assertTrue(registry.publish().blocks().size() == 1, "Active wizards should be in the snapshot");
+
+        index.cull(pos.toLong(), player);
+        ctx.assertTrue(registry.getActiveChunkCount() == 0, "Culled players don't count as watchers");
+        index.uncull(pos.toLong(), player);
+        ctx.assertTrue(registry.getActiveChunkCount() == 1, "The chunk should be active again");
+
+        index.removeWatcher(pos, player);
+        ctx.assertTrue(registry.getActiveChunkCount() == 0 && registry.getDormantChunkCount() == 1, "The chunk should be dormant again");
+
+        index.addWatcher(pos, player);
+        registry.removeBlockTicker(map, pos, wizard);
+        ctx.assertTrue(registry.getActiveChunkCount() == 0 && registry.getDormantChunkCount() == 0, "There are no wizards left");
+
+        packetCtx.close();
+        ctx.complete();
+    }
+
+    /**
+     * Watches the chunk of the test, see {@link PacketTester#watchTestChunk()}
+     */
+    private static ChunkPos watchTestChunk(TestContext ctx, PacketTester packetCtx) {
+        var pos = new ChunkPos(ctx.getAbsolutePos(BlockPos.ORIGIN));
+        packetCtx.watchTestChunk();
+
+        var index = getIndex(ctx.getWorld());
+        ctx.assertTrue(index.getWatchers(pos).contains(packetCtx.playerEntity), "Player should be watching the chunk");
+        ctx.assertTrue(index.getWatchedChunks(packetCtx.playerEntity).contains(pos.toLong()), "Player should be watching the chunk");
+        return pos;
+    }
+
+    private static ChunkWatcherIndex getIndex(ServerWorld world) {
+        return ((ChunkWatcherIndexDuck)world).polymc$getChunkWatcherIndex();
+    }
+}
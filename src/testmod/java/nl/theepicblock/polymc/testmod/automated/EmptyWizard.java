@@ -0,0 +1,19 @@
+package nl.theepicblock.polymc.testmod.automated;
+
+import io.github.theepicblock.polymc.api.wizard.PacketConsumer;
+import io.github.theepicblock.polymc.api.wizard.Wizard;
+
+/**
+ * A wizard that doesn't send anything, used by tests and benchmarks that only care about how wizards are stored and ticked
+ */
+public class EmptyWizard extends Wizard {
+    public EmptyWizard() {
+        super(null);
+    }
+
+    @Override
+    public void addPlayer(PacketConsumer player) {}
+
+    @Override
+    public void removePlayer(PacketConsumer player) {}
+}
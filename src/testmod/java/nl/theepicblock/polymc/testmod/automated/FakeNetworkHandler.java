@@ -1,10 +1,17 @@
 package nl.theepicblock.polymc.testmod.automated;
 
+import io.github.theepicblock.polymc.impl.poly.wizard.PreEncodedPacket;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
 import net.fabricmc.fabric.api.networking.v1.PacketByteBufs;
 import net.minecraft.network.ClientConnection;
 import net.minecraft.network.NetworkSide;
 import net.minecraft.network.NetworkState;
+import net.minecraft.network.PacketByteBuf;
 import net.minecraft.network.PacketCallbacks;
+import net.minecraft.network.handler.PacketEncoder;
 import net.minecraft.network.listener.PacketListener;
 import net.minecraft.network.packet.Packet;
 import net.minecraft.network.packet.s2c.play.BundleS2CPacket;
@@ -20,6 +27,7 @@ import java.util.ArrayList;
 
 public class FakeNetworkHandler extends ServerPlayNetworkHandler {
     public ArrayList<Packet<?>> sentPackets = new ArrayList<>();
+    public int bundlesReceived = 0;
 
     public FakeNetworkHandler(MinecraftServer server, ServerPlayerEntity player) {
         super(server, new FakeClientConnection(), player, ConnectedClientData.createDefault(player.getGameProfile()));
@@ -35,6 +43,7 @@ public class FakeNetworkHandler extends ServerPlayNetworkHandler {
     @Override
     public void send(Packet<?> packet, @Nullable PacketCallbacks callbacks) {
         if (packet instanceof BundleS2CPacket bundle) {
+            bundlesReceived++;
             for (var packet2 : bundle.getPackets()) {
                 this.send(packet2, callbacks);
             }
@@ -50,6 +59,13 @@ public class FakeNetworkHandler extends ServerPlayNetworkHandler {
             throw new IllegalArgumentException("Can't reencode bundles as of now");
         }
 
+        if (packet instanceof PreEncodedPacket) {
+            // These go through the real encoder, as that's where the id of the wrapped packet is filled in
+            var encoded = new PacketByteBuf(Unpooled.wrappedBuffer(encode(packet)));
+            var id = encoded.readVarInt();
+            return (T)NetworkState.PLAY.getHandler(NetworkSide.CLIENTBOUND).createPacket(id, encoded);
+        }
+
         var bytebuf = PacketByteBufs.create();
         // TODO not use internal stuff here
         PacketContext.setContext(this.connection, packet);
@@ -66,6 +82,24 @@ public class FakeNetworkHandler extends ServerPlayNetworkHandler {
         return (T)reconstructedPacket;
     }
 
+    /**
+     * Runs the packet through a vanilla {@link PacketEncoder}
+     * @return the bytes that would be sent over the network, starting with the packet id
+     */
+    public byte[] encode(Packet<?> packet) {
+        var channel = new EmbeddedChannel(new PacketEncoder(ClientConnection.CLIENTBOUND_PROTOCOL_KEY));
+        channel.attr(ClientConnection.CLIENTBOUND_PROTOCOL_KEY).set(NetworkState.PLAY.getHandler(NetworkSide.CLIENTBOUND));
+        try {
+            channel.writeOutbound(packet);
+            ByteBuf out = channel.readOutbound();
+            var bytes = ByteBufUtil.getBytes(out);
+            out.release();
+            return bytes;
+        } finally {
+            channel.finishAndReleaseAll();
+        }
+    }
+
     private static final class FakeClientConnection extends ClientConnection {
         private FakeClientConnection() {
             super(NetworkSide.CLIENTBOUND);
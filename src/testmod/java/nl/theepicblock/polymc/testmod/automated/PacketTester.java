@@ -3,6 +3,8 @@ package nl.theepicblock.polymc.testmod.automated;
 import com.mojang.authlib.GameProfile;
 import io.github.theepicblock.polymc.api.PolyMap;
 import io.github.theepicblock.polymc.api.misc.PolyMapProvider;
+import io.github.theepicblock.polymc.impl.misc.WatchListener;
+import io.github.theepicblock.polymc.impl.mixin.WizardMaterializationDuck;
 import net.minecraft.entity.Entity;
 import net.minecraft.network.packet.Packet;
 import net.minecraft.network.packet.c2s.common.SyncedClientOptions;
@@ -42,10 +44,24 @@ public class PacketTester implements Closeable {
         world.getChunkManager().threadedAnvilChunkStorage.updatePosition(playerEntity);
     }
 
+    /**
+     * Fake players aren't ticked, so they never actually get sent chunks. This calls the hook the chunk sender would've called for the chunk of the test,
+     * and spawns the chunk's wizards straight away instead of waiting for the end of the tick.
+     */
+    public void watchTestChunk() {
+        var world = this.context.getWorld();
+        ((WatchListener)world.getWorldChunk(this.context.getAbsolutePos(BlockPos.ORIGIN))).polymc$addPlayer(this.playerEntity);
+        ((WizardMaterializationDuck)world).polymc$getMaterializationQueue().drain(Long.MAX_VALUE);
+    }
+
     public <T extends Packet<?>> T reencode(T packet) {
         return this.fakeNetworkHandler.reencode(packet);
     }
 
+    public byte[] encode(Packet<?> packet) {
+        return this.fakeNetworkHandler.encode(packet);
+    }
+
     public void setMap(PolyMap map) {
         PolyMapProvider.get(this.playerEntity).setPolyMap(map);
     }
@@ -91,6 +107,13 @@ public class PacketTester implements Closeable {
         return this.fakeNetworkHandler.sentPackets.stream().filter(p -> p.getClass() == packetType).map(p -> (T)p);
     }
 
+    /**
+     * @return the amount of {@link net.minecraft.network.packet.s2c.play.BundleS2CPacket}s this player has received. The packets inside are still recorded separately
+     */
+    public int getBundlesReceived() {
+        return this.fakeNetworkHandler.bundlesReceived;
+    }
+
     public void assertReceived(Packet<?> packet, String message) {
         this.context.assertTrue(this.fakeNetworkHandler.sentPackets.contains(packet), message);
     }
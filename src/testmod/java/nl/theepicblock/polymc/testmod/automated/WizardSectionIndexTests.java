@@ -0,0 +1,168 @@
+package nl.theepicblock.polymc.testmod.automated;
+
+import io.github.theepicblock.polymc.api.PolyMap;
+import io.github.theepicblock.polymc.api.misc.PolyMapProvider;
+import io.github.theepicblock.polymc.api.wizard.WizardView;
+import io.github.theepicblock.polymc.impl.misc.WatchListener;
+import io.github.theepicblock.polymc.impl.mixin.ChunkWatcherIndexDuck;
+import io.github.theepicblock.polymc.impl.mixin.WizardChunkDuck;
+import io.github.theepicblock.polymc.impl.mixin.WizardMaterializationDuck;
+import io.github.theepicblock.polymc.impl.mixin.WizardSectionDuck;
+import io.github.theepicblock.polymc.impl.poly.wizard.WizardSectionIndex;
+import net.fabricmc.fabric.api.gametest.v1.FabricGameTest;
+import net.minecraft.block.Blocks;
+import net.minecraft.block.PistonBlock;
+import net.minecraft.entity.EntityType;
+import net.minecraft.network.packet.s2c.play.EntitySpawnS2CPacket;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.test.GameTest;
+import net.minecraft.test.TestContext;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.math.Direction;
+import net.minecraft.world.chunk.ChunkSection;
+import net.minecraft.world.chunk.WorldChunk;
+import nl.theepicblock.polymc.testmod.Testmod;
+
+public class WizardSectionIndexTests implements FabricGameTest {
+    /**
+     * A chunk that's loaded from disk doesn't have an index yet, it should be built from the blocks in its sections once it's needed
+     */
+    @GameTest(templateName = EMPTY_STRUCTURE, batchId = "wizardIndexReload", tickLimit = 200)
+    public void builtOnLoad(TestContext ctx) {
+        var world = ctx.getWorld();
+        var packetCtx = new PacketTester(ctx);
+        var map = PolyMapProvider.getPolyMap(packetCtx.playerEntity);
+        var pos = getUnloadedPos(ctx);
+        var chunkPos = new ChunkPos(pos);
+
+        var oldChunk = loadForced(world, chunkPos);
+        world.setBlockState(pos, Testmod.TEST_BLOCK_WIZARD.getDefaultState());
+        world.setBlockState(pos.east(), Blocks.CHEST.getDefaultState());
+
+        unload(ctx, oldChunk, () -> {
+            var chunk = loadForced(world, chunkPos);
+            ctx.assertTrue(chunk != oldChunk, "The chunk should've been loaded from disk again");
+            ctx.assertTrue(contains(ctx, map, pos), "The wizard block should've been found when building the index");
+
+            var packet = packetCtx.capture(EntitySpawnS2CPacket.class, () -> ((WizardChunkDuck)chunk).polymc$spawnWizardsFor(packetCtx.playerEntity));
+            ctx.assertTrue(packet.getEntityType() == EntityType.ITEM, "Test wizard should spawn an entity, not a "+packet.getEntityType());
+
+            world.setChunkForced(chunkPos.x, chunkPos.z, false);
+            packetCtx.close();
+            ctx.complete();
+        });
+    }
+
+    @GameTest(templateName = EMPTY_STRUCTURE)
+    public void blockChanges(TestContext ctx) {
+        var packetCtx = new PacketTester(ctx);
+        var map = PolyMapProvider.getPolyMap(packetCtx.playerEntity);
+        var pos = ctx.getAbsolutePos(new BlockPos(1, 1, 1));
+        ctx.setBlockState(1,1,1, Blocks.STONE);
+        ctx.assertFalse(contains(ctx, map, pos), "Stone doesn't have a wizard");
+
+        ctx.setBlockState(1,1,1, Testmod.TEST_BLOCK_WIZARD);
+        ctx.assertTrue(contains(ctx, map, pos), "The index wasn't updated when a wizard block was placed");
+
+        ctx.setBlockState(1,1,1, Blocks.AIR);
+        ctx.assertFalse(contains(ctx, map, pos), "The index wasn't updated when a wizard block was removed");
+
+        packetCtx.close();
+        ctx.complete();
+    }
+
+    @GameTest(templateName = EMPTY_STRUCTURE, batchId = "wizardIndexPiston")
+    public void pistonMove(TestContext ctx) {
+        var packetCtx = new PacketTester(ctx);
+        var map = PolyMapProvider.getPolyMap(packetCtx.playerEntity);
+        var from = ctx.getAbsolutePos(new BlockPos(0, 2, 0));
+        var to = ctx.getAbsolutePos(new BlockPos(0, 3, 0));
+
+        ctx.setBlockState(0,1,0, Blocks.PISTON.getDefaultState().with(PistonBlock.FACING, Direction.UP));
+        ctx.setBlockState(0,2,0, Testmod.TEST_BLOCK_WIZARD);
+        ctx.assertTrue(contains(ctx, map, from), "The wizard block should be in the index");
+
+        ctx.runAtTick(1, () -> ctx.setBlockState(0,0,0, Blocks.REDSTONE_BLOCK));
+
+        ctx.runAtTick(6, () -> {
+            ctx.checkBlock(new BlockPos(0,3,0), block -> block == Testmod.TEST_BLOCK_WIZARD, "The wizard block should've been pushed");
+            ctx.assertFalse(contains(ctx, map, from), "The old position of the pushed block is still in the index");
+            ctx.assertTrue(contains(ctx, map, to), "The new position of the pushed block is missing from the index");
+
+            packetCtx.close();
+            ctx.complete();
+        });
+    }
+
+    /**
+     * When a chunk is unloaded its wizards should be removed, and nobody should be watching it anymore
+     */
+    @GameTest(templateName = EMPTY_STRUCTURE, batchId = "wizardIndexUnload", tickLimit = 200)
+    public void chunkUnload(TestContext ctx) {
+        var world = ctx.getWorld();
+        var packetCtx = new PacketTester(ctx);
+        var player = packetCtx.playerEntity;
+        var pos = getUnloadedPos(ctx);
+        var chunkPos = new ChunkPos(pos);
+        var index = ((ChunkWatcherIndexDuck)world).polymc$getChunkWatcherIndex();
+
+        var chunk = loadForced(world, chunkPos);
+        world.setBlockState(pos, Testmod.TEST_BLOCK_WIZARD.getDefaultState());
+        world.setBlockState(pos.east(), Blocks.CHEST.getDefaultState());
+        ((WatchListener)chunk).polymc$addPlayer(player);
+        ((WizardMaterializationDuck)world).polymc$getMaterializationQueue().drain(Long.MAX_VALUE);
+        ctx.assertFalse(((WizardView)chunk).getWizards(pos).isEmpty(), "The wizard should've been created");
+        ctx.assertTrue(index.getWatchers(chunkPos).contains(player), "The player should be watching the chunk");
+
+        unload(ctx, chunk, () -> {
+            ctx.assertTrue(((WizardView)chunk).getWizards(pos).isEmpty(), "The wizards should've been removed with the chunk");
+            ctx.assertFalse(index.getWatchedChunks(player).contains(chunkPos.toLong()), "Nobody should be watching an unloaded chunk");
+
+            packetCtx.close();
+            ctx.complete();
+        });
+    }
+
+    /**
+     * @return a position that's far enough from the test that nothing else keeps its chunk loaded
+     */
+    private static BlockPos getUnloadedPos(TestContext ctx) {
+        return ctx.getAbsolutePos(new BlockPos(0, 1, 0)).add(0, 0, 4096);
+    }
+
+    private static WorldChunk loadForced(ServerWorld world, ChunkPos pos) {
+        world.setChunkForced(pos.x, pos.z, true);
+        return world.getChunk(pos.x, pos.z);
+    }
+
+    /**
+     * Removes the ticket of the chunk and waits until the game has actually unloaded it.
+     * The chunk needs a block entity, as those are cleared once the chunk is unloaded.
+     */
+    private static void unload(TestContext ctx, WorldChunk chunk, Runnable then) {
+        ctx.getWorld().setChunkForced(chunk.getPos().x, chunk.getPos().z, false);
+        waitUntilUnloaded(ctx, chunk, then);
+    }
+
+    private static void waitUntilUnloaded(TestContext ctx, WorldChunk chunk, Runnable then) {
+        ctx.waitAndRun(1, () -> {
+            if (chunk.getBlockEntities().isEmpty()) {
+                then.run();
+            } else {
+                waitUntilUnloaded(ctx, chunk, then);
+            }
+        });
+    }
+
+    private static ChunkSection getSection(TestContext ctx, BlockPos pos) {
+        var world = ctx.getWorld();
+        return world.getWorldChunk(pos).getSection(world.getSectionIndex(pos.getY()));
+    }
+
+    private static boolean contains(TestContext ctx, PolyMap map, BlockPos pos) {
+        var section = getSection(ctx, pos);
+        var index = WizardSectionIndex.toIndex(pos.getX() & 15, pos.getY() & 15, pos.getZ() & 15);
+        return ((WizardSectionDuck)section).polymc$getWizardIndex().get(map, section).contains((short)index);
+    }
+}
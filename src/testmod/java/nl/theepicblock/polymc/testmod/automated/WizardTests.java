@@ -1,22 +1,62 @@
 package nl.theepicblock.polymc.testmod.automated;
 
+import io.github.theepicblock.polymc.PolyMc;
+import io.github.theepicblock.polymc.api.misc.PolyMapProvider;
+import io.github.theepicblock.polymc.api.wizard.VItem;
+import io.github.theepicblock.polymc.api.wizard.Wizard;
+import io.github.theepicblock.polymc.impl.ConfigManager;
+import io.github.theepicblock.polymc.impl.misc.WatchListener;
+import io.github.theepicblock.polymc.impl.mixin.ChunkWatcherIndexDuck;
+import io.github.theepicblock.polymc.impl.mixin.WizardMaterializationDuck;
+import io.github.theepicblock.polymc.impl.poly.wizard.CachedPolyMapFilteredPlayerView;
+import io.github.theepicblock.polymc.impl.poly.wizard.PacketCountManager;
+import io.github.theepicblock.polymc.impl.poly.wizard.PlacedWizardInfo;
+import io.github.theepicblock.polymc.impl.poly.wizard.PlayerPacketBuffer;
+import io.github.theepicblock.polymc.impl.poly.wizard.PreEncodedPacket;
+import io.github.theepicblock.polymc.impl.poly.wizard.SinglePlayerView;
+import io.github.theepicblock.polymc.impl.poly.wizard.RegularWizardUpdater;
+import io.github.theepicblock.polymc.impl.poly.wizard.ThreadedWizardUpdater;
+import io.github.theepicblock.polymc.impl.poly.wizard.WizardLod;
+import io.github.theepicblock.polymc.impl.poly.wizard.WizardMaterializationQueue;
 import net.fabricmc.fabric.api.gametest.v1.FabricGameTest;
+import net.fabricmc.fabric.api.networking.v1.PacketByteBufs;
 import net.minecraft.block.Blocks;
 import net.minecraft.block.PistonBlock;
+import net.minecraft.entity.Entity;
 import net.minecraft.entity.EntityType;
+import net.minecraft.entity.TrackedPosition;
+import net.minecraft.item.ItemStack;
+import net.minecraft.network.packet.Packet;
+import net.minecraft.network.packet.s2c.play.EntitiesDestroyS2CPacket;
 import net.minecraft.network.packet.s2c.play.EntityPositionS2CPacket;
+import net.minecraft.network.packet.s2c.play.EntityS2CPacket;
 import net.minecraft.network.packet.s2c.play.EntitySpawnS2CPacket;
+import net.minecraft.network.packet.s2c.play.EntityTrackerUpdateS2CPacket;
+import net.minecraft.network.packet.s2c.play.EntityVelocityUpdateS2CPacket;
+import net.minecraft.server.network.ServerPlayerEntity;
 import net.minecraft.test.GameTest;
 import net.minecraft.test.TestContext;
 import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
 import net.minecraft.util.math.Direction;
 import net.minecraft.util.math.Vec3d;
+import nl.theepicblock.polymc.testmod.TestOtherEntity;
 import nl.theepicblock.polymc.testmod.Testmod;
+import nl.theepicblock.polymc.testmod.poly.TestWizardBlockPoly;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.BiConsumer;
 
 public class WizardTests implements FabricGameTest {
     @GameTest(templateName = EMPTY_STRUCTURE, batchId = "blockWizard")
     public void testBlock(TestContext ctx) {
         var packetCtx = new PacketTester(ctx);
+        packetCtx.watchTestChunk();
 
         ctx.setBlockState(0,0,0, Testmod.TEST_BLOCK_WIZARD);
 
@@ -33,6 +73,7 @@ public class WizardTests implements FabricGameTest {
     @GameTest(templateName = EMPTY_STRUCTURE, batchId = "pistonExtension")
     public void testPiston(TestContext ctx) {
         var packetCtx = new PacketTester(ctx);
+        packetCtx.watchTestChunk();
 
         // Set up a piston
         ctx.setBlockState(0,1,0, Blocks.PISTON.getDefaultState().with(PistonBlock.FACING, Direction.UP));
@@ -58,4 +99,457 @@ public class WizardTests implements FabricGameTest {
             ctx.complete();
         });
     }
+
+    /**
+     * Lets players join and leave every tick whilst a wizard updater thread is running
+     */
+    @GameTest(templateName = EMPTY_STRUCTURE, tickLimit = 100)
+    public void threadedUpdaterStress(TestContext ctx) {
+        var world = ctx.getWorld();
+        ctx.setBlockState(0,0,0, Testmod.TEST_BLOCK_WIZARD);
+
+        var updater = new ThreadedWizardUpdater(world.getServer());
+        updater.start();
+        var joined = new ArrayDeque<PacketTester>();
+        var left = new ArrayList<PacketTester>();
+
+        for (int tick = 1; tick <= 40; tick++) {
+            ctx.runAtTick(tick, () -> {
+                for (int i = 0; i < 4; i++) {
+                    var packetCtx = new PacketTester(ctx);
+                    packetCtx.watchTestChunk();
+                    joined.add(packetCtx);
+                }
+                while (joined.size() > 8) {
+                    var packetCtx = joined.poll();
+                    world.removePlayer(packetCtx.playerEntity, Entity.RemovalReason.UNLOADED_WITH_PLAYER);
+                    packetCtx.close();
+                    left.add(packetCtx);
+                }
+                updater.publishSnapshot();
+                ctx.assertTrue(updater.isRunning(), "The wizard updater thread crashed");
+            });
+        }
+
+        ctx.runAtTick(41, () -> {
+            var snapshot = updater.getSnapshot();
+            updater.stop();
+
+            var watchers = snapshot.entries().stream().flatMap(entry -> entry.players().stream()).toList();
+            for (var packetCtx : joined) {
+                ctx.assertTrue(watchers.contains(packetCtx.playerEntity), "A player that's watching the wizard is missing from the snapshot");
+                packetCtx.close();
+            }
+            for (var packetCtx : left) {
+                ctx.assertFalse(watchers.contains(packetCtx.playerEntity), "A player that left is still in the snapshot");
+            }
+            ctx.complete();
+        });
+    }
+
+    /**
+     * Spawns the same wizards for two players, one of which gets them through a {@link PlayerPacketBuffer}
+     */
+    @GameTest(templateName = EMPTY_STRUCTURE)
+    public void bundledWizardPackets(TestContext ctx) {
+        var world = ctx.getWorld();
+        var bundledCtx = new PacketTester(ctx);
+        var directCtx = new PacketTester(ctx);
+
+        var wizards = new ArrayList<Wizard>();
+        for (int i = 0; i < 16; i++) {
+            wizards.add(new TestWizardBlockPoly.TestWizard(new PlacedWizardInfo(ctx.getAbsolutePos(new BlockPos(i % 4, 1, i / 4)), world)));
+        }
+
+        var bundlesBefore = bundledCtx.getBundlesReceived();
+        var bundled = bundledCtx.captureAll(() -> {
+            var buffer = new PlayerPacketBuffer();
+            wizards.forEach(wizard -> wizard.addPlayer(new SinglePlayerView(bundledCtx.playerEntity, buffer)));
+            buffer.flush();
+        });
+        var direct = directCtx.captureAll(() -> wizards.forEach(wizard -> wizard.addPlayer(new SinglePlayerView(directCtx.playerEntity))));
+
+        ctx.assertTrue(bundledCtx.getBundlesReceived() - bundlesBefore == 1, "All wizard packets should've been sent as one bundle");
+        ctx.assertTrue(bundled.size() == direct.size(), "Bundle contained "+bundled.size()+" packets, but "+direct.size()+" were sent without bundling");
+        for (int i = 0; i < direct.size(); i++) {
+            assertSameEntityState(ctx, bundled.get(i), direct.get(i));
+        }
+
+        bundledCtx.close();
+        directCtx.close();
+        ctx.complete();
+    }
+
+    /**
+     * Movement packets sent to multiple players are only encoded once, this checks that every player still receives the right packet
+     */
+    @GameTest(templateName = EMPTY_STRUCTURE)
+    public void preEncodedWizardPackets(TestContext ctx) {
+        var first = new PacketTester(ctx);
+        var second = new PacketTester(ctx);
+        var velocity = new EntityVelocityUpdateS2CPacket(1234, new Vec3d(0.5, -1.25, 2));
+
+        ctx.assertTrue(PreEncodedPacket.shareIfPossible(velocity, 2) instanceof PreEncodedPacket, "Velocity packets should be shared between players");
+        ctx.assertTrue(PreEncodedPacket.shareIfPossible(velocity, 1) == velocity, "Packets for a single player shouldn't be pre-encoded");
+        ctx.assertTrue(Arrays.equals(first.encode(PreEncodedPacket.shareIfPossible(velocity, 2)), first.encode(velocity)), "The encoder should write a pre-encoded packet exactly like the packet it wraps");
+
+        first.clearPackets();
+        second.clearPackets();
+        new CachedPolyMapFilteredPlayerView(List.of(first.playerEntity, second.playerEntity), null).sendPacket(velocity);
+
+        for (var tester : List.of(first, second)) {
+            var received = tester.getFirstOfType(EntityVelocityUpdateS2CPacket.class);
+            ctx.assertTrue(received.getId() == velocity.getId(), "Pre-encoded packet is for the wrong entity");
+            ctx.assertTrue(received.getVelocityX() == velocity.getVelocityX() && received.getVelocityY() == velocity.getVelocityY() && received.getVelocityZ() == velocity.getVelocityZ(), "Pre-encoded packet has a different velocity");
+        }
+
+        first.close();
+        second.close();
+        ctx.complete();
+    }
+
+    /**
+     * Moves a virtual entity around for a while, once with relative moves and once with absolute ones.
+     * Checks that the client would end up at the same place and compares the amount of bytes sent.
+     */
+    @GameTest(templateName = EMPTY_STRUCTURE)
+    public void deltaCompressedMovement(TestContext ctx) {
+        var packetCtx = new PacketTester(ctx);
+        var view = new SinglePlayerView(packetCtx.playerEntity);
+        var start = Vec3d.of(ctx.getAbsolutePos(BlockPos.ORIGIN));
+
+        var relative = new VItem();
+        var absolute = new VItem();
+        relative.spawn(view, start);
+        absolute.spawn(view, start);
+
+        var relativePackets = packetCtx.captureAll(() -> moveAlongScene(start, (pos, yaw) -> relative.move(view, pos, yaw, (byte)0, true)));
+        var absolutePackets = packetCtx.captureAll(() -> moveAlongScene(start, (pos, yaw) -> absolute.teleport(view, pos, yaw, (byte)0, true)));
+
+        var clientPos = replayMoves(start, relativePackets);
+        var expected = sceneEnd(start);
+        ctx.assertTrue(clientPos.distanceTo(expected) < 0.001, "Client ended up at "+clientPos+" instead of "+expected);
+
+        var relativeBytes = relativePackets.stream().mapToInt(WizardTests::encodedSize).sum();
+        var absoluteBytes = absolutePackets.stream().mapToInt(WizardTests::encodedSize).sum();
+        PolyMc.LOGGER.info("Scripted movement scene: "+relativePackets.size()+" packets ("+relativeBytes+" bytes) with relative moves, "+absolutePackets.size()+" packets ("+absoluteBytes+" bytes) with absolute moves");
+        ctx.assertTrue(relativeBytes < absoluteBytes / 2, "Relative moves took "+relativeBytes+" bytes, absolute moves took "+absoluteBytes);
+
+        packetCtx.close();
+        ctx.complete();
+    }
+
+    /**
+     * Moves a virtual entity through the views of the packet count manager, where one of the players is throttled and misses most ticks.
+     * Both players should end up seeing the entity at the same place once it has stopped moving.
+     */
+    @GameTest(templateName = EMPTY_STRUCTURE)
+    public void throttledMovement(TestContext ctx) {
+        var normal = new PacketTester(ctx);
+        var throttled = new PacketTester(ctx);
+        normal.watchTestChunk();
+        throttled.watchTestChunk();
+        var normalInfo = PacketCountManager.INSTANCE.getTrackerInfoForPlayer(normal.playerEntity);
+        var throttledInfo = PacketCountManager.INSTANCE.getTrackerInfoForPlayer(throttled.playerEntity);
+        ctx.assertTrue(normalInfo != null && throttledInfo != null, "Players should be tracked by the packet count manager");
+        normalInfo.setRestrictionLevel((byte)0);
+        throttledInfo.setRestrictionLevel((byte)PacketCountManager.MAX_RESTRICTION);
+
+        var world = ctx.getWorld();
+        var chunkPos = new ChunkPos(ctx.getAbsolutePos(BlockPos.ORIGIN));
+        var map = PolyMapProvider.getPolyMap(normal.playerEntity);
+        var start = Vec3d.of(ctx.getAbsolutePos(BlockPos.ORIGIN));
+        var entity = new VItem();
+        entity.spawn(new SinglePlayerView(normal.playerEntity), start);
+        entity.spawn(new SinglePlayerView(throttled.playerEntity), start);
+
+        normal.clearPackets();
+        throttled.clearPackets();
+        var tick = new int[1];
+        moveAlongScene(start, (pos, yaw) -> entity.move(PacketCountManager.INSTANCE.getView(world, chunkPos, map, tick[0]++, 0), pos, yaw, (byte)0, true));
+        // The entity stands still at the end, which should give the throttled player the time to catch up
+        for (int i = 0; i < PacketCountManager.MAX_SEND_INTERVAL; i++) {
+            entity.move(PacketCountManager.INSTANCE.getView(world, chunkPos, map, tick[0]++, 0), sceneEnd(start), (byte)0, (byte)0, true);
+        }
+
+        var expected = sceneEnd(start);
+        var normalPos = replayMoves(start, normal.getReceived().toList());
+        var throttledPos = replayMoves(start, throttled.getReceived().toList());
+        ctx.assertTrue(normalPos.distanceTo(expected) < 0.001, "Unthrottled client ended up at "+normalPos+" instead of "+expected);
+        ctx.assertTrue(throttledPos.distanceTo(expected) < 0.001, "Throttled client ended up at "+throttledPos+" instead of "+expected);
+        ctx.assertTrue(throttled.getReceived().count() < normal.getReceived().count(), "Throttled client should've received fewer packets");
+
+        normalInfo.resetRestrictionLevel();
+        throttledInfo.resetRestrictionLevel();
+        normal.close();
+        throttled.close();
+        ctx.complete();
+    }
+
+    /**
+     * Replays the movement packets like the client would
+     * @return the position the client would see the entity at
+     */
+    private static Vec3d replayMoves(Vec3d start, List<Packet<?>> packets) {
+        var clientPos = new TrackedPosition();
+        clientPos.setPos(start);
+        for (var packet : packets) {
+            if (packet instanceof EntityPositionS2CPacket p) {
+                clientPos.setPos(new Vec3d(p.getX(), p.getY(), p.getZ()));
+            } else if (packet instanceof EntityS2CPacket p && p.isPositionChanged()) {
+                clientPos.setPos(clientPos.withDelta(p.getDeltaX(), p.getDeltaY(), p.getDeltaZ()));
+            }
+        }
+        return clientPos.getPos();
+    }
+
+    /**
+     * Walks in a line for 100 moves while turning around every 20 of them, stands still for 50 and then bobs up and down for another 50
+     */
+    private static void moveAlongScene(Vec3d start, BiConsumer<Vec3d, Byte> mover) {
+        for (int i = 0; i < 200; i++) {
+            Vec3d pos;
+            if (i < 100) {
+                pos = start.add(i * 0.1, 0, 0);
+            } else if (i < 150) {
+                pos = start.add(9.9, 0, 0);
+            } else {
+                pos = start.add(9.9, Math.sin(i * 0.3) * 0.5, 0);
+            }
+            mover.accept(pos, (byte)(i < 100 ? (i / 20) * 64 : 0));
+        }
+    }
+
+    private static Vec3d sceneEnd(Vec3d start) {
+        return start.add(9.9, Math.sin(199 * 0.3) * 0.5, 0);
+    }
+
+    private static int encodedSize(Packet<?> packet) {
+        var buf = PacketByteBufs.create();
+        packet.write(buf);
+        return buf.readableBytes() + 1; // The packet id
+    }
+
+    /**
+     * An entity wizard for an entity that's standing still shouldn't send anything after it was spawned
+     */
+    @GameTest(templateName = EMPTY_STRUCTURE, tickLimit = 100)
+    public void idleEntityWizard(TestContext ctx) {
+        var packetCtx = new PacketTester(ctx);
+        var entity = new TestOtherEntity(Testmod.TEST_ENTITY_OTHER, ctx.getWorld());
+        var pos = ctx.getAbsolute(new Vec3d(0.5, 1, 0.5));
+        entity.setPosition(pos);
+        entity.setNoGravity(true);
+        ctx.getWorld().spawnEntity(entity);
+
+        ctx.waitAndRun(5, () -> {
+            var spawn = packetCtx.getReceived(EntitySpawnS2CPacket.class)
+                    .filter(p -> p.getX() == pos.x && p.getY() == pos.y && p.getZ() == pos.z)
+                    .findAny();
+            ctx.assertTrue(spawn.isPresent(), "Entity wizard should've spawned its entity");
+            var id = spawn.get().getId();
+            packetCtx.clearPackets();
+
+            // Long enough for an absolute move to be sent, if the wizard were still moved every tick
+            ctx.waitAndRun(70, () -> {
+                ctx.assertTrue(packetCtx.getReceived(EntityPositionS2CPacket.class).noneMatch(p -> p.getId() == id), "Wizard of an idle entity shouldn't be moved");
+
+                entity.discard();
+                packetCtx.close();
+                ctx.complete();
+            });
+        });
+    }
+
+    /**
+     * Ticks a chunk with 500 idle block wizards through the {@link RegularWizardUpdater} while two players are watching it.
+     * In the steady state that shouldn't allocate anything for each wizard.
+     */
+    @GameTest(templateName = EMPTY_STRUCTURE, batchId = "wizardTickAllocations")
+    public void steadyStateTickAllocations(TestContext ctx) {
+        var threadBean = (com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+        var world = ctx.getWorld();
+        var first = new PacketTester(ctx);
+        var second = new PacketTester(ctx);
+
+        // A chunk far away from the other tests, so it only contains these wizards
+        var origin = ctx.getAbsolutePos(new BlockPos(0, 1, 0)).add(0, 0, 8192);
+        var chunkPos = new ChunkPos(origin);
+        world.setChunkForced(chunkPos.x, chunkPos.z, true);
+        var chunk = world.getChunk(chunkPos.x, chunkPos.z);
+        var positions = new ArrayList<BlockPos>();
+        for (int i = 0; i < 500; i++) {
+            positions.add(new BlockPos(chunkPos.getStartX() + (i & 15), origin.getY() + (i >> 8), chunkPos.getStartZ() + ((i >> 4) & 15)));
+        }
+
+        try {
+            positions.forEach(pos -> world.setBlockState(pos, Testmod.TEST_BLOCK_IDLE_WIZARD.getDefaultState()));
+            ((WatchListener)chunk).polymc$addPlayer(first.playerEntity);
+            ((WatchListener)chunk).polymc$addPlayer(second.playerEntity);
+            ((WizardMaterializationDuck)world).polymc$getMaterializationQueue().drain(Long.MAX_VALUE);
+            var watchers = ((ChunkWatcherIndexDuck)world).polymc$getChunkWatcherIndex().getWatchers(chunkPos);
+            ctx.assertTrue(watchers.size() == 2, "Both players should be watching the wizards, found "+watchers.size());
+
+            // Give the JIT some time to warm up
+            for (int i = 0; i < 200; i++) RegularWizardUpdater.tick(world);
+
+            var thread = Thread.currentThread().getId();
+            var before = threadBean.getThreadAllocatedBytes(thread);
+            for (int i = 0; i < 20; i++) RegularWizardUpdater.tick(world);
+            var perTick = (threadBean.getThreadAllocatedBytes(thread) - before) / 20;
+
+            // Allocating anything for each wizard, such as a view or a packet buffer, would take at least 500 * 16 bytes
+            ctx.assertTrue(perTick < 8000, "A tick of 500 idle block wizards allocated "+perTick+" bytes");
+        } finally {
+            positions.forEach(pos -> world.setBlockState(pos, Blocks.AIR.getDefaultState()));
+            world.setChunkForced(chunkPos.x, chunkPos.z, false);
+            first.close();
+            second.close();
+        }
+        ctx.complete();
+    }
+
+    /**
+     * Queues a chunk with a wizard and a chunk further away, a budget of 1ns should only handle the closest one
+     */
+    @GameTest(templateName = EMPTY_STRUCTURE)
+    public void wizardMaterializationQueue(TestContext ctx) {
+        var world = ctx.getWorld();
+        var first = new PacketTester(ctx);
+        var second = new PacketTester(ctx);
+        ctx.setBlockState(0,0,0, Testmod.TEST_BLOCK_WIZARD);
+
+        var queue = new WizardMaterializationQueue(world);
+        var chunk = new ChunkPos(ctx.getAbsolutePos(BlockPos.ORIGIN));
+        queue.enqueue(new ChunkPos(chunk.x + 3, chunk.z), first.playerEntity);
+        queue.enqueue(chunk, first.playerEntity);
+        queue.enqueue(chunk, second.playerEntity);
+        ctx.assertTrue(queue.cancel(chunk, second.playerEntity), "The second player should still have been waiting");
+        ctx.assertTrue(queue.getDepth() == 2, "Expected 2 queued chunks, found "+queue.getDepth());
+
+        second.clearPackets();
+        var packet = first.capture(EntitySpawnS2CPacket.class, () -> queue.drain(1));
+        ctx.assertTrue(packet.getEntityType() == EntityType.ITEM, "Test wizard should spawn an entity, not a "+packet.getEntityType());
+        ctx.assertTrue(second.getReceived(EntitySpawnS2CPacket.class).findAny().isEmpty(), "A cancelled player shouldn't get the wizards");
+        ctx.assertTrue(queue.getDepth() == 1, "Only the closest chunk should've been handled, "+queue.getDepth()+" are still queued");
+        ctx.assertTrue(queue.getProcessed() == 1, "Expected 1 handled chunk, found "+queue.getProcessed());
+
+        first.close();
+        second.close();
+        ctx.complete();
+    }
+
+    /**
+     * A wizard placed in a chunk whose wizards are still queued for a player shouldn't be spawned for them,
+     * otherwise it stays on their client when they stop watching the chunk before the queue gets to it
+     */
+    @GameTest(templateName = EMPTY_STRUCTURE)
+    public void placeWizardWhileQueued(TestContext ctx) {
+        var config = ConfigManager.getConfig();
+        var oldBudget = config.wizardMaterializationBudget;
+        // Everything happens in this tick, so other tests never see this config
+        config.wizardMaterializationBudget = 1;
+
+        var world = ctx.getWorld();
+        var packetCtx = new PacketTester(ctx);
+        var player = packetCtx.playerEntity;
+        try {
+            var chunk = world.getWorldChunk(ctx.getAbsolutePos(BlockPos.ORIGIN));
+            var index = ((ChunkWatcherIndexDuck)world).polymc$getChunkWatcherIndex();
+            ((WatchListener)chunk).polymc$addPlayer(player);
+            ctx.assertTrue(index.isPending(chunk.getPos().toLong(), player), "The player should be waiting for the queue");
+            ctx.assertFalse(index.getWatchers(chunk.getPos()).contains(player), "Pending players shouldn't receive wizard packets");
+
+            packetCtx.clearPackets();
+            ctx.setBlockState(0,0,0, Testmod.TEST_BLOCK_WIZARD);
+            ctx.assertTrue(packetCtx.getReceived(EntitySpawnS2CPacket.class).findAny().isEmpty(), "A wizard placed in a queued chunk shouldn't be spawned yet");
+
+            ((WatchListener)chunk).polymc$removePlayer(player);
+            ((WizardMaterializationDuck)world).polymc$getMaterializationQueue().drain(Long.MAX_VALUE);
+            ctx.assertTrue(packetCtx.getReceived(EntitySpawnS2CPacket.class).findAny().isEmpty(), "The wizard shouldn't be spawned for a player that stopped watching");
+            ctx.assertFalse(index.getWatchedChunks(player).contains(chunk.getPos().toLong()), "The player shouldn't be watching the chunk anymore");
+        } finally {
+            config.wizardMaterializationBudget = oldBudget;
+        }
+
+        packetCtx.close();
+        ctx.complete();
+    }
+
+    /**
+     * Moves a player away from and back to a wizard, checking that it's despawned and spawned at the right distances
+     */
+    @GameTest(templateName = EMPTY_STRUCTURE)
+    public void wizardLod(TestContext ctx) {
+        var config = ConfigManager.getConfig();
+        var oldDistance = config.wizardRenderDistance;
+        var oldHysteresis = config.wizardRenderDistanceHysteresis;
+        var oldBudget = config.wizardMaterializationBudget;
+        // Everything happens in this tick, so other tests never see this config
+        config.wizardRenderDistance = 32;
+        config.wizardRenderDistanceHysteresis = 16;
+        config.wizardMaterializationBudget = 0;
+
+        var world = ctx.getWorld();
+        var packetCtx = new PacketTester(ctx);
+        var player = packetCtx.playerEntity;
+        try {
+            ctx.setBlockState(0,0,0, Testmod.TEST_BLOCK_WIZARD);
+            var chunk = world.getWorldChunk(ctx.getAbsolutePos(BlockPos.ORIGIN));
+            var pos = chunk.getPos().toLong();
+            var index = ((ChunkWatcherIndexDuck)world).polymc$getChunkWatcherIndex();
+
+            moveAwayFrom(player, chunk.getPos(), 100);
+            var packets = packetCtx.captureAll(() -> ((WatchListener)chunk).polymc$addPlayer(player));
+            ctx.assertTrue(packets.stream().noneMatch(p -> p instanceof EntitySpawnS2CPacket), "Wizards out of range shouldn't be spawned");
+            ctx.assertTrue(index.isCulled(pos, player), "The player should be culled from the chunk");
+
+            moveAwayFrom(player, chunk.getPos(), 40);
+            WizardLod.update(world);
+            ctx.assertTrue(index.isCulled(pos, player), "The player isn't within the render distance yet");
+
+            moveAwayFrom(player, chunk.getPos(), 10);
+            packetCtx.capture(EntitySpawnS2CPacket.class, () -> WizardLod.update(world));
+            ctx.assertFalse(index.isCulled(pos, player), "The player should see the wizards now");
+
+            moveAwayFrom(player, chunk.getPos(), 40);
+            ctx.assertTrue(packetCtx.captureAll(() -> WizardLod.update(world)).isEmpty(), "The wizards shouldn't be despawned within the hysteresis");
+
+            moveAwayFrom(player, chunk.getPos(), 60);
+            packetCtx.capture(EntitiesDestroyS2CPacket.class, () -> WizardLod.update(world));
+            ctx.assertTrue(index.isCulled(pos, player), "The player should be culled from the chunk again");
+
+            ((WatchListener)chunk).polymc$removePlayer(player);
+            ctx.assertFalse(index.isCulled(pos, player), "The player stopped watching the chunk");
+        } finally {
+            config.wizardRenderDistance = oldDistance;
+            config.wizardRenderDistanceHysteresis = oldHysteresis;
+            config.wizardMaterializationBudget = oldBudget;
+            packetCtx.close();
+        }
+        ctx.complete();
+    }
+
+    private static void moveAwayFrom(ServerPlayerEntity player, ChunkPos chunk, int distance) {
+        player.setPosition(chunk.getCenterX() + distance, player.getY(), chunk.getCenterZ());
+    }
+
+    private static void assertSameEntityState(TestContext ctx, Packet<?> actual, Packet<?> expected) {
+        ctx.assertTrue(actual.getClass() == expected.getClass(), "Expected a "+expected.getClass().getSimpleName()+" but got a "+actual.getClass().getSimpleName());
+        if (actual instanceof EntitySpawnS2CPacket a && expected instanceof EntitySpawnS2CPacket e) {
+            ctx.assertTrue(a.getId() == e.getId() && a.getUuid().equals(e.getUuid()) && a.getEntityType() == e.getEntityType(), "Spawned a different entity");
+            ctx.assertTrue(a.getX() == e.getX() && a.getY() == e.getY() && a.getZ() == e.getZ(), "Spawned an entity at a different position");
+        } else if (actual instanceof EntityTrackerUpdateS2CPacket a && expected instanceof EntityTrackerUpdateS2CPacket e) {
+            ctx.assertTrue(a.id() == e.id(), "Tracked data was sent for a different entity");
+            ctx.assertTrue(a.trackedValues().size() == e.trackedValues().size(), "A different amount of tracked data was sent");
+            for (int i = 0; i < e.trackedValues().size(); i++) {
+                var actualEntry = a.trackedValues().get(i);
+                var expectedEntry = e.trackedValues().get(i);
+                var sameValue = actualEntry.value() instanceof ItemStack stack && expectedEntry.value() instanceof ItemStack expectedStack
+                        ? ItemStack.areEqual(stack, expectedStack)
+                        : Objects.equals(actualEntry.value(), expectedEntry.value());
+                ctx.assertTrue(actualEntry.id() == expectedEntry.id() && sameValue, "Tracked data "+expectedEntry.id()+" differs");
+            }
+        }
+    }
 }
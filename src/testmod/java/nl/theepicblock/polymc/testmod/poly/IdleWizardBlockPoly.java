@@ -0,0 +1,45 @@
+package nl.theepicblock.polymc.testmod.poly;
+
+import io.github.theepicblock.polymc.api.block.BlockPoly;
+import io.github.theepicblock.polymc.api.wizard.PacketConsumer;
+import io.github.theepicblock.polymc.api.wizard.Wizard;
+import io.github.theepicblock.polymc.api.wizard.WizardInfo;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+
+/**
+ * A block with a wizard that never sends anything, so the cost of ticking block wizards can be measured on its own
+ */
+public class IdleWizardBlockPoly implements BlockPoly {
+    @Override
+    public BlockState getClientBlock(BlockState input) {
+        return Blocks.GLASS.getDefaultState();
+    }
+
+    @Override
+    public boolean hasWizard() {
+        return true;
+    }
+
+    @Override
+    public Wizard createWizard(WizardInfo info) {
+        return new IdleWizard(info);
+    }
+
+    public static class IdleWizard extends Wizard {
+        public IdleWizard(WizardInfo info) {
+            super(info);
+        }
+
+        @Override
+        public boolean needsTicking() {
+            return true;
+        }
+
+        @Override
+        public void addPlayer(PacketConsumer player) {}
+
+        @Override
+        public void removePlayer(PacketConsumer player) {}
+    }
+}